@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks das comprobacións de colisión e da rotación das pezas
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+    /**
+     * Tipo de peza que se rota
+     */
+    @Param({"SquarePiece", "LPiece", "BarPiece", "TPiece", "ZPiece", "SPiece", "JPiece"})
+    public String pieceType;
+
+    private Game game;
+    private Piece piece;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        game = new Game();
+        // Chan cheo ata a metade, cunha columna libre en cada fila
+        for (int row = Game.ROWS / 2; row < Game.ROWS; row++) {
+            game.setGroundRow(row, ~(1 << (row % Game.COLUMNS)), Color.BLUE);
+        }
+        piece = (Piece) Class.forName("model." + pieceType).getConstructor(Game.class).newInstance(game);
+        for (int i = 0; i < 4; i++) {
+            piece.moveDown();
+        }
+        game.setCurrentPiece(piece);
+    }
+
+    @Benchmark
+    public void isValidCell(Blackhole bh) {
+        for (int row = 0; row < Game.ROWS; row++) {
+            for (int column = 0; column < Game.COLUMNS; column++) {
+                bh.consume(game.isValidCell(column, row));
+            }
+        }
+    }
+
+    @Benchmark
+    public void isValidPosition(Blackhole bh) {
+        for (int y = 0; y < Game.MAX_Y; y += Game.SQUARE_SIDE) {
+            for (int x = 0; x < Game.MAX_X; x += Game.SQUARE_SIDE) {
+                bh.consume(game.isValidPosition(x, y));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean rotate() {
+        return piece.rotate();
+    }
+
+    @Benchmark
+    public boolean moveLeftAndRight() {
+        return piece.moveLeft() & piece.moveRight();
+    }
+}
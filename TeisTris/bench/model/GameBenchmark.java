@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks do xogo completo sen ventá: baixar unha peza ata o chan, borrar
+ * de unha a catro liñas á vez e xogar partidas enteiras coa mesma semente
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    /**
+     * Número de xogos que se preparan para cada invocación. Baixar unha peza
+     * ou borrar liñas leva menos dun microsegundo, moito menos do que custa
+     * ao JMH medir unha invocación que ten Setup por invocación, así que
+     * cada invocación fai a operación en BATCH xogos preparados
+     */
+    private final static int BATCH = 2000;
+
+    /**
+     * Xogos cunha barra vertical xusto enriba dun oco de varias filas
+     * completas, para medir o borrado de liñas
+     */
+    @State(Scope.Thread)
+    public static class LinesState {
+
+        /**
+         * Número de filas que se completan ao caer a barra
+         */
+        @Param({"1", "2", "3", "4"})
+        public int lines;
+
+        private final Game[] games = new Game[BATCH];
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            for (int i = 0; i < BATCH; i++) {
+                Game game = new Game(null, i);
+                Piece bar = new BarPiece(game);
+                int hole = bar.getSquares()[0].getColumn();
+                for (int row = Game.ROWS - lines; row < Game.ROWS; row++) {
+                    game.setGroundRow(row, ~(1 << hole), Color.BLUE);
+                }
+                while (bar.moveDown()) {
+                    // Deixamos a barra apoiada no chan
+                }
+                game.setCurrentPiece(bar);
+                games[i] = game;
+            }
+        }
+    }
+
+    /**
+     * Xogos recén creados, para medir a baixada dunha peza ata o chan
+     */
+    @State(Scope.Thread)
+    public static class DropState {
+
+        private final Game[] games = new Game[BATCH];
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            for (int i = 0; i < BATCH; i++) {
+                games[i] = new Game(null, i);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int deleteCompletedLines(LinesState state) {
+        int lines = 0;
+        for (Game game : state.games) {
+            game.movePieceDown();
+            lines += game.getNumberOfLines();
+        }
+        return lines;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int movePieceDownToLock(DropState state) {
+        int rows = 0;
+        for (Game game : state.games) {
+            // As pezas reutilízanse, así que o cambio de peza vese no contador
+            while (game.getNumberOfPieces() == 1) {
+                game.movePieceDown();
+            }
+            rows += game.getCurrentPiece().getRow();
+        }
+        return rows;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int headlessGame() {
+        Random random = new Random(42);
+        Game game = new Game(null, 42L);
+        while (!game.isGameOver()) {
+            switch (random.nextInt(4)) {
+                case 0 ->
+                    game.movePieceLeft();
+                case 1 ->
+                    game.movePieceRight();
+                case 2 ->
+                    game.rotatePiece();
+                default ->
+                    game.movePieceDown();
+            }
+        }
+        return game.getNumberOfLines();
+    }
+}
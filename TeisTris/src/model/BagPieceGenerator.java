@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Xerador de "bolsa de 7": mete unha peza de cada tipo nunha bolsa, as
+ * baralla e as vai sacando. Cando a bolsa queda baleira vólvese encher, así
+ * que nunca hai máis de 12 pezas seguidas sen un tipo
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class BagPieceGenerator implements PieceGenerator {
+
+    private final long seed;
+    private final SplittableRandom random;
+
+    /**
+     * Tipos de peza da bolsa actual, e posición da seguinte que se saca
+     */
+    private final int[] bag = new int[Game.PIECE_TYPES];
+    private int next = Game.PIECE_TYPES;
+
+    /**
+     * Construtor da clase
+     *
+     * @param seed Semente do xerador
+     */
+    public BagPieceGenerator(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        for (int i = 0; i < bag.length; i++) {
+            bag[i] = i;
+        }
+    }
+
+    @Override
+    public int nextType() {
+        if (next == bag.length) {
+            // Barallamos a bolsa (Fisher-Yates)
+            for (int i = bag.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int type = bag[i];
+                bag[i] = bag[j];
+                bag[j] = type;
+            }
+            next = 0;
+        }
+        return bag[next++];
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String getName() {
+        return "bag";
+    }
+}
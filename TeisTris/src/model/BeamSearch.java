@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Procura con anticipación que usa as pezas da vista previa. En cada nivel
+ * proba todas as colocacións da peza correspondente sobre cada chan do nivel
+ * anterior, e só garda os width mellores chans distintos (o feixe). A peza
+ * actual colócase onde empezou o mellor chan do último nivel.
+ * <p>
+ * Os chans de cada nivel repártense entre os fíos do ForkJoinPool no que se
+ * chame, ou do común. Se se acaba o tempo, o nivel a medias descártase e
+ * úsase o último nivel completo; o primeiro nivel sempre se completa para ter
+ * un movemento
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class BeamSearch implements PlacementFinder {
+
+    /**
+     * Número máximo de chans que expande cada tarefa sen dividirse
+     */
+    private final static int NODES_PER_TASK = 16;
+
+    private final PlacementSearch search;
+    private final int width;
+    private final int depth;
+    private final long budgetNanos;
+
+    /**
+     * Chan ao que se chega despois dunha secuencia de colocacións
+     */
+    private static class Node {
+
+        private final int[] ground;
+        private final int lines;
+        private final double score;
+
+        /**
+         * Primeira colocación da secuencia, que é a da peza actual
+         */
+        private final Placement root;
+
+        /**
+         * Hash do chan, que só se calcula se o chan chega a escollerse
+         */
+        private long hash;
+
+        private Node(int[] ground, int lines, double score, Placement root) {
+            this.ground = ground;
+            this.lines = lines;
+            this.score = score;
+            this.root = root;
+        }
+    }
+
+    /**
+     * Construtor da clase
+     *
+     * @param search Procura que proba as colocacións de cada peza e as valora
+     * @param width Número de chans que se gardan en cada nivel
+     * @param depth Número de pezas que se colocan, incluída a actual
+     * @param budgetNanos Tempo máximo de cada procura en nanosegundos, ou
+     * Long.MAX_VALUE para non ter límite
+     */
+    public BeamSearch(PlacementSearch search, int width, int depth, long budgetNanos) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("O feixe e a profundidade teñen que ser positivos");
+        }
+        this.search = search;
+        this.width = width;
+        this.depth = depth;
+        this.budgetNanos = budgetNanos;
+    }
+
+    @Override
+    public Placement findBest(Game game) {
+        long start = System.nanoTime();
+        long deadline = (budgetNanos == Long.MAX_VALUE) ? Long.MAX_VALUE : start + budgetNanos;
+        search.startSearch();
+        int[] ground = new int[Game.ROWS];
+        for (int row = 0; row < Game.ROWS; row++) {
+            ground[row] = game.getGroundRow(row);
+        }
+
+        // Primeiro nivel: a peza actual, que sempre se completa
+        Piece piece = game.getCurrentPiece();
+        PriorityQueue<Node> first = newBeam();
+        search.expand(ground, game.getGroundHash(), piece.getShape(), piece.getColumn(), piece.getRow(),
+                new int[Game.ROWS], (orientation, column, row, lines, result, score) -> {
+                    if (isCandidate(first, score)) {
+                        Placement root = new Placement();
+                        root.offer(orientation, column, row, lines, result, score);
+                        offer(first, new Node(result.clone(), lines, score, root));
+                    }
+                });
+        List<Node> beam = select(first);
+        if (beam.isEmpty()) {
+            // Todas as colocacións rematan o xogo: calquera vale
+            return search.findBest(game);
+        }
+
+        // Seguintes niveis: as pezas da vista previa
+        int levels = Math.min(depth, 1 + game.getPreviewSize());
+        for (int level = 1; level < levels; level++) {
+            Piece next = game.createPiece(game.getPreviewType(level - 1));
+            LevelTask task = new LevelTask(beam, 0, beam.size(), next, deadline);
+            PriorityQueue<Node> children = task.invoke();
+            if (task.hasSkippedNodes()) {
+                // Acabouse o tempo a metade do nivel
+                break;
+            }
+            List<Node> nextBeam = select(children);
+            if (nextBeam.isEmpty()) {
+                // Todas as secuencias perden: quedamos co nivel anterior
+                break;
+            }
+            beam = nextBeam;
+        }
+        return beam.get(0).root;
+    }
+
+    /**
+     * Tarefa que expande un intervalo dos chans dun nivel
+     */
+    private class LevelTask extends RecursiveTask<PriorityQueue<Node>> {
+
+        private final List<Node> nodes;
+        private final int from, to;
+        private final Piece piece;
+        private final long deadline;
+        private boolean skipped = false;
+        private LevelTask left, right;
+
+        private LevelTask(List<Node> nodes, int from, int to, Piece piece, long deadline) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.piece = piece;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected PriorityQueue<Node> compute() {
+            if (to - from <= NODES_PER_TASK) {
+                PriorityQueue<Node> children = newBeam();
+                int[] scratch = new int[Game.ROWS];
+                for (int i = from; i < to; i++) {
+                    if (System.nanoTime() > deadline) {
+                        skipped = true;
+                        break;
+                    }
+                    Node parent = nodes.get(i);
+                    double linesScore = search.getHeuristic().getLinesWeight() * parent.lines;
+                    search.expand(parent.ground, parent.hash, piece.getShape(), piece.getColumn(), piece.getRow(),
+                            scratch, (orientation, column, row, lines, result, score) -> {
+                                if (score != PlacementSearch.LOSING_SCORE) {
+                                    double total = score + linesScore;
+                                    if (isCandidate(children, total)) {
+                                        offer(children, new Node(result.clone(), parent.lines + lines,
+                                                total, parent.root));
+                                    }
+                                }
+                            });
+                }
+                return children;
+            }
+            int middle = (from + to) >>> 1;
+            left = new LevelTask(nodes, from, middle, piece, deadline);
+            right = new LevelTask(nodes, middle, to, piece, deadline);
+            left.fork();
+            PriorityQueue<Node> children = right.compute();
+            for (Node node : left.join()) {
+                if (isCandidate(children, node.score)) {
+                    offer(children, node);
+                }
+            }
+            return children;
+        }
+
+        /**
+         * @return true se esta tarefa ou as súas subtarefas deixaron chans sen
+         * expandir
+         */
+        private boolean hasSkippedNodes() {
+            if (left == null) {
+                return skipped;
+            }
+            return left.hasSkippedNodes() || right.hasSkippedNodes();
+        }
+    }
+
+    /**
+     * @return Feixe baleiro, que ten o peor chan na cabeza
+     */
+    private PriorityQueue<Node> newBeam() {
+        return new PriorityQueue<>(width + 1, (a, b) -> Double.compare(a.score, b.score));
+    }
+
+    /**
+     * @param beam Feixe
+     * @param score Valoración dun chan
+     * @return true se o chan pode entrar no feixe
+     */
+    private boolean isCandidate(PriorityQueue<Node> beam, double score) {
+        return beam.size() < width * 2 || score > beam.peek().score;
+    }
+
+    /**
+     * Mete un chan no feixe. Gárdanse ata o dobre do ancho para que os chans
+     * repetidos non deixen o feixe curto ao quitalos
+     */
+    private void offer(PriorityQueue<Node> beam, Node node) {
+        beam.add(node);
+        if (beam.size() > width * 2) {
+            beam.poll();
+        }
+    }
+
+    /**
+     * Escolle os mellores chans distintos dun feixe
+     *
+     * @param beam Feixe
+     * @return Ata width chans, do mellor ao peor
+     */
+    private List<Node> select(PriorityQueue<Node> beam) {
+        Node[] nodes = beam.toArray(new Node[0]);
+        Arrays.sort(nodes, (a, b) -> Double.compare(b.score, a.score));
+        List<Node> selected = new ArrayList<>(width);
+        for (Node node : nodes) {
+            if (selected.size() == width) {
+                break;
+            }
+            if (node.score != PlacementSearch.LOSING_SCORE) {
+                node.hash = Zobrist.hash(node.ground);
+                if (!contains(selected, node.hash)) {
+                    selected.add(node);
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * @param nodes Chans escollidos
+     * @param hash Hash dun chan
+     * @return true se algún dos chans ten ese hash
+     */
+    private static boolean contains(List<Node> nodes, long hash) {
+        for (Node node : nodes) {
+            if (node.hash == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+/**
+ * Política que xoga soa: cando sae unha peza procura a súa mellor colocación
+ * cun PlacementFinder e, no mesmo tick, rota e despraza a peza ata ela. Despois
+ * deixa que a peza caia
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class BotMovePolicy implements MovePolicy {
+
+    private final PlacementFinder finder;
+
+    /**
+     * Número da peza para a que se calculou a colocación, e a colocación
+     */
+    private int plannedPiece = 0;
+    private Placement target = null;
+
+    /**
+     * Construtor da clase
+     *
+     * @param finder Algoritmo que decide onde colocar cada peza
+     */
+    public BotMovePolicy(PlacementFinder finder) {
+        this.finder = finder;
+    }
+
+    @Override
+    public void move(Game game) {
+        if (game.isGameOver() || game.isPaused()) {
+            return;
+        }
+        if (game.getNumberOfPieces() != plannedPiece) {
+            plannedPiece = game.getNumberOfPieces();
+            target = finder.findBest(game);
+        }
+        if (target == null) {
+            return;
+        }
+        Piece piece = game.getCurrentPiece();
+        for (int i = 0; i < piece.getShape().getOrientations()
+                && piece.getOrientation() != target.getOrientation(); i++) {
+            game.rotatePiece();
+        }
+        while (piece.getColumn() < target.getColumn()) {
+            int column = piece.getColumn();
+            game.movePieceRight();
+            if (piece.getColumn() == column) {
+                // A peza chocou antes de chegar á columna
+                break;
+            }
+        }
+        while (piece.getColumn() > target.getColumn()) {
+            int column = piece.getColumn();
+            game.movePieceLeft();
+            if (piece.getColumn() == column) {
+                break;
+            }
+        }
+    }
+}
@@ -16,25 +16,18 @@
  */
 package model;
 
-import java.io.File;
-import java.io.IOException;
-import view.MainWindow;
-import java.util.HashMap;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
- * Clase que implementa o comportamento do xogo do Tetris
+ * Clase que implementa o comportamento do xogo do Tetris. Non depende da
+ * ventá: os cambios notifícanse a un GameListener
  *
  * @author Jorge Val Gil e Adrían Fernández Pérez
  */
 public class Game {
 
-    private final HashMap<String, Square> groundSquares;
-
     /**
      * Constante que define o tamaño en pixels do lado dun cadrado
      */
@@ -47,6 +40,74 @@ public class Game {
      * Constante que define o valor máximo da coordenada y no panel de cadrados
      */
     public final static int MAX_Y = 400;
+    /**
+     * Constante que define o número de columnas do panel de cadrados
+     */
+    public final static int COLUMNS = MAX_X / SQUARE_SIDE;
+    /**
+     * Constante que define o número de filas do panel de cadrados
+     */
+    public final static int ROWS = MAX_Y / SQUARE_SIDE;
+    /**
+     * Número de tipos de peza distintos
+     */
+    public final static int PIECE_TYPES = 7;
+    /**
+     * Número de pezas que se ven por adiantado por defecto
+     */
+    public final static int DEFAULT_PREVIEW_SIZE = 3;
+    /**
+     * Máscara dunha fila do chan con todas as columnas ocupadas
+     */
+    final static int FULL_ROW = (1 << COLUMNS) - 1;
+    /**
+     * Número de columnas de parede que se engaden a cada lado dunha fila do
+     * chan ao comprobar se unha peza colle, para non ter que comprobar os
+     * límites do panel cadrado a cadrado
+     */
+    private final static int WALL = PieceShape.BOX;
+    /**
+     * Máscara das paredes esquerda e dereita dunha fila desprazada WALL bits
+     */
+    private final static long WALLS = ((1L << WALL) - 1) | (-1L << (COLUMNS + WALL));
+
+    /**
+     * Filas do chan en forma de máscara de bits: o bit c da fila r está activo
+     * se a columna c desa fila está ocupada
+     */
+    private final int[] groundRows = new int[ROWS];
+
+    /**
+     * Cores dos cadrados do chan, indexadas por fila * COLUMNS + columna. Cada
+     * valor é unha posición de PALETTE, e 0 indica unha cela baleira
+     */
+    private final byte[] groundColours = new byte[ROWS * COLUMNS];
+
+    /**
+     * Fila do cadrado máis alto de cada columna do chan, ou ROWS se a columna
+     * está baleira. Con ela calcúlase onde cae unha peza mirando só as súas
+     * columnas
+     */
+    private final int[] columnTops = new int[COLUMNS];
+
+    /**
+     * Número de celas baleiras do chan que teñen un cadrado por enriba na
+     * mesma columna. Igual que columnTops, actualízase ao fixar cada peza e
+     * ao borrar liñas, sen percorrer o chan
+     */
+    private int holes = 0;
+
+    /**
+     * Hash de Zobrist das celas ocupadas do chan, que se actualiza cada vez
+     * que cambia unha cela
+     */
+    private long groundHash = 0;
+
+    /**
+     * Cores que poden ter os cadrados do chan
+     */
+    private final static Color[] PALETTE = {null, Color.BLUE, Color.GREEN,
+        Color.YELLOW, Color.RED, Color.MAGENTA, Color.PINK, Color.ORANGE};
 
     /**
      * Referenza á peza actual do xogo, que é a única que se pode mover
@@ -54,9 +115,58 @@ public class Game {
     private Piece currentPiece;
 
     /**
-     * Referenza á ventá principal do xogo
+     * Unha peza de cada tipo, que se reutiliza cada vez que sae ese tipo,
+     * para que fixar unha peza e sacar a seguinte non cree ningún obxecto
+     */
+    private final Piece[] spawnPieces = new Piece[PIECE_TYPES];
+
+    /**
+     * Copia da peza actual antes do último movemento, que se reutiliza para
+     * informar do movemento sen crear novos obxectos
+     */
+    private Piece previousPiece;
+
+    /**
+     * Listener que non fai nada, usado cando o xogo se executa sen ventá
+     */
+    private final static GameListener NO_LISTENER = new GameListener() {
+        public void pieceSpawned(Piece piece) {
+        }
+
+        public void pieceMoved(Piece oldPiece, Piece newPiece) {
+        }
+
+        public void pieceLocked(Piece piece) {
+        }
+
+        public void linesCleared(int clearedRows, int numberOfLines) {
+        }
+
+        public void gameOver() {
+        }
+    };
+
+    /**
+     * Referenza ao obxecto que recibe os eventos do xogo
      */
-    private MainWindow mainWindow;
+    private GameListener listener;
+
+    /**
+     * Obxecto que recibe as accións do xogador, ou null
+     */
+    private InputListener inputListener = null;
+
+    /**
+     * Número de frames do xogo
+     */
+    private int frame = 0;
+
+    /**
+     * Curva de gravidade do xogo, e fracción de fila que leva caída a peza
+     * actual, en unidades de 1/Gravity.ROW
+     */
+    private Gravity gravity = Gravity.ONE_ROW;
+    private int gravityProgress = 0;
 
     /**
      * Flag que indica se o xogo está en pausa ou non
@@ -69,17 +179,93 @@ public class Game {
     private int numberOfLines = 0;
 
     /**
-     * @return Referenza á ventá principal do xogo
+     * Xerador de pezas propio do xogo, para que cada partida sexa independente
+     * das demais e reproducible a partir da súa semente
      */
-    public MainWindow getMainWindow() {
-        return mainWindow;
+    private final PieceGenerator generator;
+
+    /**
+     * Tipos das seguintes pezas que van saír, nun buffer circular que comeza
+     * en previewHead. Ao sacar unha peza o seu oco énchese co xerador, así
+     * que a cola non crea ningún obxecto
+     */
+    private final int[] preview;
+    private int previewHead = 0;
+
+    /**
+     * Número de pezas creadas no xogo
+     */
+    private int numberOfPieces = 0;
+
+    /**
+     * Flag que indica se o xogo rematou
+     */
+    private boolean gameOver = false;
+
+    /**
+     * @return Referenza ao obxecto que recibe os eventos do xogo
+     */
+    public GameListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @param listener Obxecto que recibe os eventos do xogo, ou null para
+     * executar o xogo sen ventá
+     */
+    public void setListener(GameListener listener) {
+        this.listener = (listener == null) ? NO_LISTENER : listener;
+    }
+
+    /**
+     * @param inputListener Obxecto que recibe as accións do xogador que o
+     * xogo acepta, ou null
+     */
+    public void setInputListener(InputListener inputListener) {
+        this.inputListener = inputListener;
+    }
+
+    /**
+     * @return Número de frames do xogo
+     */
+    public int getFrame() {
+        return frame;
+    }
+
+    /**
+     * @return Curva de gravidade do xogo
+     */
+    public Gravity getGravity() {
+        return gravity;
     }
 
     /**
-     * @param mainWindow Ventá principal do xogo a establecer
+     * @param gravity Curva de gravidade do xogo. Débese establecer antes do
+     * primeiro tick
      */
-    public void setMainWindow(MainWindow mainWindow) {
-        this.mainWindow = mainWindow;
+    public void setGravity(Gravity gravity) {
+        this.gravity = gravity;
+    }
+
+    /**
+     * @return Referenza á peza actual do xogo
+     */
+    public Piece getCurrentPiece() {
+        return currentPiece;
+    }
+
+    /**
+     * @return Número de pezas creadas no xogo
+     */
+    public int getNumberOfPieces() {
+        return numberOfPieces;
+    }
+
+    /**
+     * @return true se o xogo rematou, se non false
+     */
+    public boolean isGameOver() {
+        return gameOver;
     }
 
     /**
@@ -110,23 +296,174 @@ public class Game {
         this.numberOfLines = numberOfLines;
     }
 
+    /**
+     * @param row Fila do chan
+     * @return Máscara de bits coas columnas ocupadas desa fila
+     */
+    public int getGroundRow(int row) {
+        return groundRows[row];
+    }
+
+    /**
+     * @param column Columna do chan
+     * @return Altura da columna: número de filas desde o fondo ata o seu
+     * cadrado máis alto incluído
+     */
+    public int getColumnHeight(int column) {
+        return ROWS - columnTops[column];
+    }
+
+    /**
+     * @return Número de celas baleiras do chan que teñen un cadrado por
+     * enriba na mesma columna
+     */
+    public int getHoles() {
+        return holes;
+    }
+
+    /**
+     * @return Copia da fila do cadrado máis alto de cada columna, ou ROWS se
+     * a columna está baleira
+     */
+    int[] copyColumnTops() {
+        return columnTops.clone();
+    }
+
+    /**
+     * @return Hash de Zobrist do chan. Dous chans coas mesmas celas ocupadas
+     * teñen o mesmo hash, sen importar as cores
+     */
+    public long getGroundHash() {
+        return groundHash;
+    }
+
+    /**
+     * @param column Columna da cela
+     * @param row Fila da cela
+     * @return Cor do cadrado do chan nesa cela, ou null se está baleira
+     */
+    public Color getGroundColour(int column, int row) {
+        return PALETTE[groundColours[row * COLUMNS + column]];
+    }
+
+    /**
+     * @param index Posición dunha cor na paleta do chan
+     * @return A cor, ou null para unha cela baleira
+     */
+    static Color paletteColour(byte index) {
+        return PALETTE[index];
+    }
+
+    /**
+     * Crea unha copia inmutable do estado visible do xogo
+     *
+     * @return A copia
+     */
+    public GameSnapshot snapshot() {
+        Square[] squares = currentPiece.getSquares();
+        int[] pieceColumns = new int[squares.length];
+        int[] pieceRows = new int[squares.length];
+        for (int i = 0; i < squares.length; i++) {
+            pieceColumns[i] = squares[i].getColumn();
+            pieceRows[i] = squares[i].getRow();
+        }
+        return new GameSnapshot(groundRows.clone(), groundColours.clone(), pieceColumns, pieceRows,
+                squares[0].getFillColor(), getLandingRow() - currentPiece.getRow(), numberOfLines, frame, gameOver);
+    }
+
+    /**
+     * Construtor da clase para xogar sen ventá, que crea unha primeira peza
+     */
+    public Game() {
+        this(null);
+    }
+
+    /**
+     * Construtor da clase, que crea unha primeira peza cunha semente ao chou
+     *
+     * @param listener Obxecto que recibe os eventos do xogo, ou null para
+     * executar o xogo sen ventá
+     */
+    public Game(GameListener listener) {
+        this(listener, new SplittableRandom().nextLong());
+    }
+
     /**
      * Construtor da clase, que crea unha primeira peza
      *
-     * @param mainWindow Referenza á ventá principal do xogo
+     * @param listener Obxecto que recibe os eventos do xogo, ou null para
+     * executar o xogo sen ventá
+     * @param seed Semente do xerador de pezas. Dúas partidas coa mesma semente
+     * e os mesmos movementos son idénticas
      */
-    public Game(MainWindow mainWindow) {
-        this.mainWindow = mainWindow;
+    public Game(GameListener listener, long seed) {
+        this(listener, new UniformPieceGenerator(seed), DEFAULT_PREVIEW_SIZE);
+    }
+
+    /**
+     * Construtor da clase, que crea unha primeira peza
+     *
+     * @param listener Obxecto que recibe os eventos do xogo, ou null para
+     * executar o xogo sen ventá
+     * @param generator Xerador que decide o tipo das pezas
+     * @param previewSize Número de pezas que se ven por adiantado
+     */
+    public Game(GameListener listener, PieceGenerator generator, int previewSize) {
+        if (previewSize < 0) {
+            throw new IllegalArgumentException("Tamaño de vista previa negativo: " + previewSize);
+        }
+        this.generator = generator;
+        Arrays.fill(columnTops, ROWS);
+        this.preview = new int[previewSize];
+        for (int i = 0; i < previewSize; i++) {
+            preview[i] = generator.nextType();
+        }
+        this.setListener(listener);
         this.createNewPiece();
-        groundSquares = new HashMap();
+    }
+
+    /**
+     * @return Semente do xerador de pezas do xogo
+     */
+    public long getSeed() {
+        return generator.getSeed();
+    }
+
+    /**
+     * @return Xerador de pezas do xogo
+     */
+    public PieceGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * @return Número de pezas que se ven por adiantado
+     */
+    public int getPreviewSize() {
+        return preview.length;
+    }
+
+    /**
+     * @param index Posición na cola, 0 para a seguinte peza
+     * @return Tipo dunha das seguintes pezas que van saír
+     */
+    public int getPreviewType(int index) {
+        if (index < 0 || index >= preview.length) {
+            throw new IndexOutOfBoundsException("Posición fóra da vista previa: " + index);
+        }
+        return preview[(previewHead + index) % preview.length];
     }
 
     /**
      * Move a ficha actual á dereita, se o xogo non está pausado
      */
     public void movePieceRight() {
-        if (!paused) {
-            currentPiece.moveRight();
+        if (isRunning()) {
+            recordInput(InputAction.RIGHT);
+            previousPiece.copyFrom(currentPiece);
+            if (currentPiece.moveRight()) {
+                listener.pieceMoved(previousPiece, currentPiece);
+            }
         }
     }
 
@@ -134,8 +471,12 @@ public class Game {
      * Move a ficha actual á esquerda, se o xogo non está pausado
      */
     public void movePieceLeft() {
-        if (!paused) {
-            currentPiece.moveLeft();
+        if (isRunning()) {
+            recordInput(InputAction.LEFT);
+            previousPiece.copyFrom(currentPiece);
+            if (currentPiece.moveLeft()) {
+                listener.pieceMoved(previousPiece, currentPiece);
+            }
         }
     }
 
@@ -143,26 +484,151 @@ public class Game {
      * Rota a ficha actual, se o xogo non está pausado
      */
     public void rotatePiece() {
-        if (!paused) {
-            currentPiece.rotate();
+        if (isRunning()) {
+            recordInput(InputAction.ROTATE);
+            previousPiece.copyFrom(currentPiece);
+            if (currentPiece.rotate()) {
+                listener.pieceMoved(previousPiece, currentPiece);
+            }
         }
     }
 
     /**
-     * Move a peza actual abaixo, se o xogo non está pausado Se a peza choca con
-     * algo e xa non pode baixar, pasa a formar parte do chan e créase unha nova
-     * peza
+     * Move a peza actual abaixo por petición do xogador, se o xogo non está
+     * pausado
      */
     public void movePieceDown() {
-        if ((!paused) && (!currentPiece.moveDown())) {
-            this.addPieceToGround();
-            this.createNewPiece();
-            if (this.hitPieceTheGround()) {
-                this.mainWindow.showGameOver();
+        if (isRunning()) {
+            recordInput(InputAction.DOWN);
+            fall(1);
+        }
+    }
+
+    /**
+     * Deixa caer a peza actual de golpe ata onde se apoia e a fixa no chan,
+     * se o xogo non está pausado
+     */
+    public void hardDrop() {
+        if (isRunning()) {
+            recordInput(InputAction.HARD_DROP);
+            int distance = getLandingRow() - currentPiece.getRow();
+            if (distance > 0) {
+                previousPiece.copyFrom(currentPiece);
+                currentPiece.moveDown(distance);
+                listener.pieceMoved(previousPiece, currentPiece);
+            }
+            lockPiece();
+        }
+    }
+
+    /**
+     * Calcula a fila na que se apoiaría a peza actual se caese. Coas filas
+     * máis altas de cada columna só hai que mirar as columnas da peza, salvo
+     * que a peza estea metida debaixo dun saínte
+     *
+     * @return Fila da caixa da peza ao apoiarse
+     */
+    public int getLandingRow() {
+        PieceShape shape = currentPiece.getShape();
+        int orientation = currentPiece.getOrientation();
+        return PlacementSearch.dropRow(groundRows, columnTops, shape.getMasks(orientation),
+                shape.getBottoms(orientation), currentPiece.getColumn(), currentPiece.getRow());
+    }
+
+    /**
+     * Frame do xogo, se non está pausado: a peza actual acumula a gravidade
+     * do nivel e baixa as filas enteiras que leve acumuladas, dunha vez. Se
+     * xa estaba apoiada, pasa a formar parte do chan
+     */
+    public void tick() {
+        if (isRunning()) {
+            frame++;
+            gravityProgress += gravity.perFrame(numberOfLines);
+            if (gravityProgress >= Gravity.ROW) {
+                int rows = gravityProgress / Gravity.ROW;
+                gravityProgress %= Gravity.ROW;
+                fall(rows);
             }
         }
     }
 
+    /**
+     * Aplica unha acción do xogador
+     *
+     * @param action Acción a aplicar
+     */
+    public void apply(InputAction action) {
+        switch (action) {
+            case LEFT ->
+                movePieceLeft();
+            case RIGHT ->
+                movePieceRight();
+            case DOWN ->
+                movePieceDown();
+            case ROTATE ->
+                rotatePiece();
+            case HARD_DROP ->
+                hardDrop();
+        }
+    }
+
+    /**
+     * Informa ao InputListener dunha acción aceptada
+     *
+     * @param action Acción do xogador
+     */
+    private void recordInput(InputAction action) {
+        if (inputListener != null) {
+            inputListener.inputApplied(frame, action);
+        }
+    }
+
+    /**
+     * Move a peza actual varias filas abaixo, ou ata que se apoie. Busca a
+     * fila final percorrendo as máscaras do chan e move a peza unha soa vez,
+     * así que cun tick de 20 filas só se avisa dun movemento. Se a peza xa
+     * estaba apoiada, pasa a formar parte do chan e créase unha nova peza
+     *
+     * @param rows Número de filas que debería caer a peza
+     */
+    private void fall(int rows) {
+        int[] masks = currentPiece.getShape().getMasks(currentPiece.getOrientation());
+        int column = currentPiece.getColumn();
+        int row = currentPiece.getRow();
+        int distance = 0;
+        while (distance < rows && fits(groundRows, masks, column, row + distance + 1)) {
+            distance++;
+        }
+        if (distance > 0) {
+            previousPiece.copyFrom(currentPiece);
+            currentPiece.moveDown(distance);
+            listener.pieceMoved(previousPiece, currentPiece);
+        } else {
+            lockPiece();
+        }
+    }
+
+    /**
+     * Fixa a peza actual no chan e crea unha nova. Se a nova peza non colle,
+     * o xogo remata
+     */
+    private void lockPiece() {
+        this.addPieceToGround();
+        this.createNewPiece();
+        gravityProgress = 0;
+        if (this.hitPieceTheGround()) {
+            gameOver = true;
+            listener.gameOver();
+        }
+    }
+
+    /**
+     * @return true se o xogo non está pausado nin rematado
+     */
+    public boolean isRunning() {
+        return !paused && !gameOver;
+    }
+
     /**
      * Método que permite saber se unha posición x,y é válida para un cadrado
      *
@@ -171,36 +637,158 @@ public class Game {
      * @return true se esa posición é válida, se non false
      */
     public boolean isValidPosition(int x, int y) {
-        if ((x == MAX_X) || (x < 0) || (y == MAX_Y)) {
+        return isValidCell(Math.floorDiv(x, SQUARE_SIDE), Math.floorDiv(y, SQUARE_SIDE));
+    }
+
+    /**
+     * Método que permite saber se unha cela do panel é válida para un cadrado.
+     * Non crea ningún obxecto, polo que se pode chamar en cada movemento
+     *
+     * @param column Columna da cela
+     * @param row Fila da cela
+     * @return true se esa cela é válida, se non false
+     */
+    public boolean isValidCell(int column, int row) {
+        if ((column >= COLUMNS) || (column < 0) || (row >= ROWS)) {
             return false;
-        } else if (groundSquares.containsKey(x + "," + y)) {
+        } else if (row < 0) {
+            // Por enriba do panel non hai chan
+            return true;
+        }
+        return (groundRows[row] & (1 << column)) == 0;
+    }
+
+    /**
+     * Método que permite saber se unha peza colle nunha posición do panel. Fai
+     * unha soa operación AND por fila da peza, sen crear ningún obxecto
+     *
+     * @param shape Máscaras de bits de cada fila da caixa da peza
+     * @param column Columna da esquina superior esquerda da caixa
+     * @param row Fila da esquina superior esquerda da caixa
+     * @return true se a peza colle nesa posición, se non false
+     */
+    public boolean fits(int[] shape, int column, int row) {
+        return fits(groundRows, shape, column, row);
+    }
+
+    /**
+     * Método que permite saber se unha peza colle nunha posición dun chan
+     * calquera, por exemplo un chan imaxinario da procura de colocacións
+     *
+     * @param ground Filas do chan en forma de máscara de bits
+     * @param shape Máscaras de bits de cada fila da caixa da peza
+     * @param column Columna da esquina superior esquerda da caixa
+     * @param row Fila da esquina superior esquerda da caixa
+     * @return true se a peza colle nesa posición, se non false
+     */
+    static boolean fits(int[] ground, int[] shape, int column, int row) {
+        if ((column < -WALL) || (column >= COLUMNS)) {
             return false;
         }
+        for (int i = 0; i < shape.length; i++) {
+            if (shape[i] != 0) {
+                int r = row + i;
+                if (r >= ROWS) {
+                    return false;
+                }
+                // Por enriba do panel non hai chan, só as paredes
+                long walls = (r < 0) ? WALLS : ((long) ground[r] << WALL) | WALLS;
+                if ((((long) shape[i] << (column + WALL)) & walls) != 0) {
+                    return false;
+                }
+            }
+        }
         return true;
     }
 
     /**
-     * Crea unha nova peza e a establece como peza actual do xogo
+     * Substitúe a peza actual. Úsase para preparar partidas coñecidas, por
+     * exemplo nos benchmarks
+     *
+     * @param piece Nova peza actual
      */
-    private void createNewPiece() {
-        int pieceType = new java.util.Random().nextInt(7);
+    void setCurrentPiece(Piece piece) {
+        currentPiece = piece;
+    }
+
+    /**
+     * Substitúe unha fila do chan. Úsase para preparar chans coñecidos, por
+     * exemplo nos benchmarks
+     *
+     * @param row Fila do chan
+     * @param mask Máscara de bits coas columnas ocupadas
+     * @param fillColor Cor dos cadrados ocupados
+     */
+    void setGroundRow(int row, int mask, Color fillColor) {
+        groundHash ^= Zobrist.row(row, groundRows[row]);
+        groundRows[row] = mask & FULL_ROW;
+        groundHash ^= Zobrist.row(row, groundRows[row]);
+        for (int column = 0; column < COLUMNS; column++) {
+            groundColours[row * COLUMNS + column] = ((mask & (1 << column)) != 0) ? colourIndex(fillColor) : 0;
+        }
+        System.arraycopy(PlacementSearch.columnTops(groundRows), 0, columnTops, 0, COLUMNS);
+        holes = 0;
+        int covered = 0;
+        for (int r = 0; r < ROWS; r++) {
+            holes += Integer.bitCount(covered & ~groundRows[r]);
+            covered |= groundRows[r];
+        }
+    }
 
-        switch (pieceType) {
+    /**
+     * Crea unha peza deste xogo na súa posición inicial, sen facela actual
+     *
+     * @param pieceType Tipo da peza, entre 0 e PIECE_TYPES - 1
+     * @return A nova peza
+     */
+    public Piece createPiece(int pieceType) {
+        return switch (pieceType) {
             case 0 ->
-                currentPiece = new SquarePiece(this);
+                new SquarePiece(this);
             case 1 ->
-                currentPiece = new LPiece(this);
+                new LPiece(this);
             case 2 ->
-                currentPiece = new BarPiece(this);
+                new BarPiece(this);
             case 3 ->
-                currentPiece = new TPiece(this);
+                new TPiece(this);
             case 4 ->
-                currentPiece = new ZPiece(this);
+                new ZPiece(this);
             case 5 ->
-                currentPiece = new SPiece(this);
+                new SPiece(this);
             case 6 ->
-                currentPiece = new JPiece(this);
+                new JPiece(this);
+            default ->
+                throw new IllegalArgumentException("Tipo de peza descoñecido: " + pieceType);
+        };
+    }
+
+    /**
+     * Saca unha nova peza e a establece como peza actual do xogo. O tipo sae
+     * da cabeza da vista previa, e o xerador enche o oco que deixa. A peza
+     * só se crea a primeira vez que sae cada tipo
+     */
+    private void createNewPiece() {
+        int pieceType;
+        if (preview.length == 0) {
+            pieceType = generator.nextType();
+        } else {
+            pieceType = preview[previewHead];
+            preview[previewHead] = generator.nextType();
+            previewHead = (previewHead + 1) % preview.length;
         }
+        Piece piece = spawnPieces[pieceType];
+        if (piece == null) {
+            piece = createPiece(pieceType);
+            spawnPieces[pieceType] = piece;
+        } else {
+            piece.respawn();
+        }
+        currentPiece = piece;
+        if (previousPiece == null) {
+            previousPiece = new Piece(currentPiece);
+        }
+        numberOfPieces++;
+        listener.pieceSpawned(currentPiece);
 
     }
 
@@ -210,74 +798,106 @@ public class Game {
     private void addPieceToGround() {
         // Engadimos os cadrados da peza ao chan
         for (Square sqr : currentPiece.getSquares()) {
-            groundSquares.put(sqr.getCoordinates(), sqr);
+            int column = sqr.getColumn();
+            int row = sqr.getRow();
+            if (row >= 0) {
+                groundRows[row] |= 1 << column;
+                groundHash ^= Zobrist.cell(column, row);
+                if (row < columnTops[column]) {
+                    // As celas baleiras entre o cadrado e o antigo máis alto quedan tapadas
+                    holes += columnTops[column] - row - 1;
+                    columnTops[column] = row;
+                } else {
+                    // A peza meteuse debaixo dun saínte e enche un oco
+                    holes--;
+                }
+                groundColours[row * COLUMNS + column] = colourIndex(sqr.getFillColor());
+            }
         }
+        listener.pieceLocked(currentPiece);
         // Chamamos ao método que borra as liñas do chan que estean completas
         this.deleteCompletedLines();
     }
 
     /**
-     * Se os cadrados que están forman unha liña completa, bórranse eses
-     * cadrados do chan e súmase unha nova liña no número de liñas realizadas
+     * Se os cadrados que están forman liñas completas, bórranse eses cadrados
+     * do chan e súmanse as novas liñas ao número de liñas realizadas. Todas as
+     * liñas completas bórranse nun só percorrido de abaixo a arriba, baixando
+     * cada fila restante directamente á súa posición final
      */
     private void deleteCompletedLines() {
-        for (int i = 0; i < MAX_Y; i += SQUARE_SIDE) {
-            boolean emptyCellFound = false;
-            for (int j = 0; j < MAX_X; j += SQUARE_SIDE) {
-                if (!groundSquares.containsKey(j + "," + i)) {
-                    emptyCellFound = true;
-                }
+        int clearedRows = 0;
+        for (int row = 0; row < ROWS; row++) {
+            if (groundRows[row] == FULL_ROW) {
+                clearedRows |= 1 << row;
             }
-            if (!emptyCellFound) {
-                deleteLine(i);
-                reproducirSonido();
-                numberOfLines++;
-
-                mainWindow.showNumberOfLines(numberOfLines);
+        }
+        if (clearedRows == 0) {
+            return;
+        }
+        updateProfile(clearedRows);
+        int target = ROWS - 1;
+        for (int row = ROWS - 1; row >= 0; row--) {
+            if ((clearedRows & (1 << row)) != 0) {
+                groundHash ^= Zobrist.row(row, FULL_ROW);
+            } else {
+                if (target != row) {
+                    // A fila cambia de posición, e as súas celas de clave
+                    groundHash ^= Zobrist.row(row, groundRows[row]) ^ Zobrist.row(target, groundRows[row]);
+                    groundRows[target] = groundRows[row];
+                    System.arraycopy(groundColours, row * COLUMNS, groundColours, target * COLUMNS, COLUMNS);
+                }
+                target--;
             }
         }
+        // As filas que quedaron libres na parte de arriba están baleiras
+        Arrays.fill(groundColours, 0, (target + 1) * COLUMNS, (byte) 0);
+        while (target >= 0) {
+            groundRows[target--] = 0;
+        }
+        numberOfLines += Integer.bitCount(clearedRows);
+        listener.linesCleared(clearedRows, numberOfLines);
     }
 
     /**
-     * Método que reproduce un son ao eliminar unha liña
+     * Actualiza columnTops e holes antes de borrar unhas filas completas.
+     * Nas filas completas non hai ocos, así que os ocos só cambian nas
+     * columnas nas que o cadrado máis alto está nunha fila borrada: os ocos
+     * que había debaixo del ata o seguinte cadrado deixan de estar tapados
+     *
+     * @param clearedRows Máscara das filas que se van borrar
      */
-    public void reproducirSonido() {
-        try {
-            String nombreSonido = "src/deletelines.wav";
-            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new File(nombreSonido).getAbsoluteFile());
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioInputStream);
-            clip.start();
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException ex) {
-            System.out.println("Error al reproducir el sonido.");
+    private void updateProfile(int clearedRows) {
+        for (int column = 0; column < COLUMNS; column++) {
+            int row = columnTops[column];
+            if ((clearedRows & (1 << row)) != 0) {
+                // Baixamos ata o seguinte cadrado que non se borra
+                row++;
+                while (row < ROWS && ((clearedRows & (1 << row)) != 0 || (groundRows[row] & (1 << column)) == 0)) {
+                    if ((clearedRows & (1 << row)) == 0) {
+                        holes--;
+                    }
+                    row++;
+                }
+            }
+            // A fila baixa tantas posicións como filas se borran debaixo dela
+            columnTops[column] = (row < ROWS) ? row + Integer.bitCount(clearedRows >>> (row + 1)) : ROWS;
         }
     }
 
     /**
-     * Borra todos os cadrados que se atopan na liña indicada pola coordenada y,
-     * e baixa todos os cadrados que estean situados por enriba unha posición
-     * cara abaixo
+     * Obtén a posición dunha cor na paleta do chan
      *
-     * @param y Coordenada y da liña a borrar
-     */
-    private void deleteLine(int y) {
-        System.out.println("---Eliminando la linea---");
-        for (int j = 0; j < MAX_X; j += SQUARE_SIDE) {
-            Square sqr = groundSquares.get(j + "," + y);
-            mainWindow.deleteSquare(sqr.getLblSquare());
-            groundSquares.remove(j + "," + y);
-        }
-        for (int j = y - SQUARE_SIDE; j >= 0; j -= SQUARE_SIDE) {
-            for (int x = 0; x < MAX_X; x += SQUARE_SIDE) {
-                if (groundSquares.containsKey(x + "," + j)) {
-                    Square sqr = groundSquares.get(x + "," + j);
-                    groundSquares.remove(sqr.getCoordinates());
-                    sqr.setY(sqr.getY() + SQUARE_SIDE);
-                    groundSquares.put(sqr.getCoordinates(), sqr);
-                }
+     * @param colour Cor dun cadrado
+     * @return Posición da cor en PALETTE
+     */
+    private static byte colourIndex(Color colour) {
+        for (byte i = 1; i < PALETTE.length; i++) {
+            if (PALETTE[i].equals(colour)) {
+                return i;
             }
         }
-
+        throw new IllegalArgumentException("Cor sen posición na paleta: " + colour);
     }
 
     /**
@@ -286,12 +906,12 @@ public class Game {
      * @return true se a peza actual choca cos cadrados do chan; se non false
      */
     private boolean hitPieceTheGround() {
-        boolean hit = false;
         for (Square sqr : currentPiece.getSquares()) {
-            if (!isValidPosition(sqr.getX(), sqr.getY())) {
-                hit = true;
+            // Por enriba do cadrado máis alto da columna non pode chocar
+            if (sqr.getRow() >= columnTops[sqr.getColumn()] && !isValidCell(sqr.getColumn(), sqr.getRow())) {
+                return true;
             }
         }
-        return hit;
+        return false;
     }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+/**
+ * Interface que recibe os eventos do xogo do Tetris. Permite que o xogo
+ * funcione sen ventá, e que a ventá principal se entere dos cambios
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public interface GameListener {
+
+    /**
+     * Chámase cando se crea unha nova peza actual
+     *
+     * @param piece Peza creada
+     */
+    void pieceSpawned(Piece piece);
+
+    /**
+     * Chámase unha soa vez cada vez que a peza actual se move ou rota
+     *
+     * @param oldPiece Copia da peza antes do movemento. Só é válida durante a
+     * chamada, porque o xogo a reutiliza no seguinte movemento
+     * @param newPiece Peza actual xa movida
+     */
+    void pieceMoved(Piece oldPiece, Piece newPiece);
+
+    /**
+     * Chámase cando a peza actual pasa a formar parte do chan
+     *
+     * @param piece Peza engadida ao chan
+     */
+    void pieceLocked(Piece piece);
+
+    /**
+     * Chámase unha soa vez cando se borran unha ou varias liñas completas do
+     * chan. As filas superiores xa baixaron ata a súa nova posición
+     *
+     * @param clearedRows Máscara de bits coas filas borradas: o bit r está
+     * activo se se borrou a fila r (contando as filas antes de baixar o chan)
+     * @param numberOfLines Número de liñas feitas no xogo
+     */
+    void linesCleared(int clearedRows, int numberOfLines);
+
+    /**
+     * Chámase cando a nova peza choca co chan e remata o xogo
+     */
+    void gameOver();
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.awt.Color;
+
+/**
+ * Copia inmutable do estado visible dun xogo nun momento: o chan, a peza
+ * actual, onde caería e o marcador. Pódese pasar a outro fío, por exemplo
+ * para pintala, mentres o xogo segue
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public final class GameSnapshot {
+
+    private final int[] groundRows;
+    private final byte[] groundColours;
+    private final int[] pieceColumns;
+    private final int[] pieceRows;
+    private final Color pieceColour;
+    private final int ghostDrop;
+    private final int numberOfLines;
+    private final int frame;
+    private final boolean gameOver;
+
+    /**
+     * Construtor da clase. Os arrays pasan a ser da copia e non se deben
+     * modificar despois
+     */
+    GameSnapshot(int[] groundRows, byte[] groundColours, int[] pieceColumns, int[] pieceRows,
+            Color pieceColour, int ghostDrop, int numberOfLines, int frame, boolean gameOver) {
+        this.groundRows = groundRows;
+        this.groundColours = groundColours;
+        this.pieceColumns = pieceColumns;
+        this.pieceRows = pieceRows;
+        this.pieceColour = pieceColour;
+        this.ghostDrop = ghostDrop;
+        this.numberOfLines = numberOfLines;
+        this.frame = frame;
+        this.gameOver = gameOver;
+    }
+
+    /**
+     * @param row Fila do chan
+     * @return Máscara de bits coas columnas ocupadas desa fila
+     */
+    public int getGroundRow(int row) {
+        return groundRows[row];
+    }
+
+    /**
+     * @param column Columna da cela
+     * @param row Fila da cela
+     * @return Cor do cadrado do chan nesa cela, ou null se está baleira
+     */
+    public Color getGroundColour(int column, int row) {
+        return Game.paletteColour(groundColours[row * Game.COLUMNS + column]);
+    }
+
+    /**
+     * @param other Outra copia
+     * @param row Fila do chan
+     * @return true se a fila ten as mesmas celas e cores nas dúas copias
+     */
+    public boolean isSameRow(GameSnapshot other, int row) {
+        if (groundRows[row] != other.groundRows[row]) {
+            return false;
+        }
+        for (int i = row * Game.COLUMNS; i < (row + 1) * Game.COLUMNS; i++) {
+            if (groundColours[i] != other.groundColours[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Número de cadrados da peza actual
+     */
+    public int getPieceSize() {
+        return pieceColumns.length;
+    }
+
+    /**
+     * @param square Número de cadrado
+     * @return Columna do cadrado da peza actual
+     */
+    public int getPieceColumn(int square) {
+        return pieceColumns[square];
+    }
+
+    /**
+     * @param square Número de cadrado
+     * @return Fila do cadrado da peza actual
+     */
+    public int getPieceRow(int square) {
+        return pieceRows[square];
+    }
+
+    /**
+     * @param square Número de cadrado
+     * @return Fila do cadrado da peza fantasma, que mostra onde caería a
+     * peza actual
+     */
+    public int getGhostRow(int square) {
+        return pieceRows[square] + ghostDrop;
+    }
+
+    /**
+     * @return Filas que caería a peza actual ata apoiarse
+     */
+    public int getGhostDrop() {
+        return ghostDrop;
+    }
+
+    /**
+     * @return Cor da peza actual
+     */
+    public Color getPieceColour() {
+        return pieceColour;
+    }
+
+    /**
+     * @return Número de liñas feitas no xogo
+     */
+    public int getNumberOfLines() {
+        return numberOfLines;
+    }
+
+    /**
+     * @return Número de frames do xogo
+     */
+    public int getFrame() {
+        return frame;
+    }
+
+    /**
+     * @return true se o xogo rematou, se non false
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+}
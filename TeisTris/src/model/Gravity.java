@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+/**
+ * Curva de gravidade: as filas que cae a peza en cada frame segundo o nivel,
+ * que sobe cada certo número de liñas. As filas por frame van en unidades de
+ * 1/ROW de fila, así que pode haber gravidades fraccionarias, como unha fila
+ * cada 64 frames, e gravidades de varias filas por frame, ata MAX_GRAVITY
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public final class Gravity {
+
+    /**
+     * Unidades de gravidade que equivalen a unha fila por frame
+     */
+    public final static int ROW = 256;
+
+    /**
+     * Gravidade máxima: a peza cae todo o panel nun só frame
+     */
+    public final static int MAX_GRAVITY = Game.ROWS * ROW;
+
+    /**
+     * Unha fila en cada frame, sen niveis. É a gravidade por defecto dos
+     * xogos sen ventá, nos que cada tick baixa a peza unha fila
+     */
+    public final static Gravity ONE_ROW = new Gravity("1g", Integer.MAX_VALUE, ROW);
+
+    /**
+     * Curva do xogo con ventá a 60 frames por segundo: comeza nunha fila cada
+     * 64 frames, un pouco máis dun segundo, duplícase cada 5 liñas e remata
+     * no máximo
+     */
+    public final static Gravity STANDARD = new Gravity("standard", 5,
+            4, 8, 16, 32, 64, 128, 256, 512, 1024, 2048, MAX_GRAVITY);
+
+    private final String name;
+    private final int linesPerLevel;
+
+    /**
+     * Gravidade de cada nivel. Os niveis que pasan do último usan a do último
+     */
+    private final int[] levels;
+
+    /**
+     * Construtor da clase
+     *
+     * @param name Nome da curva, que se garda nas repeticións
+     * @param linesPerLevel Liñas que hai que facer para subir de nivel
+     * @param levels Gravidade de cada nivel, en unidades de 1/ROW de fila por
+     * frame
+     */
+    public Gravity(String name, int linesPerLevel, int... levels) {
+        if (linesPerLevel <= 0 || levels.length == 0) {
+            throw new IllegalArgumentException("Curva de gravidade sen niveis: " + name);
+        }
+        for (int level : levels) {
+            if (level < 0 || level > MAX_GRAVITY) {
+                throw new IllegalArgumentException("Gravidade fóra de rango: " + level);
+            }
+        }
+        this.name = name;
+        this.linesPerLevel = linesPerLevel;
+        this.levels = levels.clone();
+    }
+
+    /**
+     * Obtén unha das curvas predefinidas polo seu nome
+     *
+     * @param name Nome da curva
+     * @return A curva
+     */
+    public static Gravity forName(String name) {
+        return switch (name) {
+            case "1g" ->
+                ONE_ROW;
+            case "standard" ->
+                STANDARD;
+            default ->
+                throw new IllegalArgumentException("Gravidade descoñecida: " + name);
+        };
+    }
+
+    /**
+     * @return Nome da curva
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param numberOfLines Número de liñas feitas no xogo
+     * @return Nivel do xogo, empezando en 0
+     */
+    public int getLevel(int numberOfLines) {
+        return numberOfLines / linesPerLevel;
+    }
+
+    /**
+     * @param numberOfLines Número de liñas feitas no xogo
+     * @return Gravidade nese momento, en unidades de 1/ROW de fila por frame
+     */
+    public int perFrame(int numberOfLines) {
+        return levels[Math.min(getLevel(numberOfLines), levels.length - 1)];
+    }
+}
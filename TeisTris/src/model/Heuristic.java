@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+/**
+ * Función que valora un chan a partir de catro características: a suma das
+ * alturas das columnas, o número de ocos tapados, a diferenza de altura entre
+ * columnas veciñas e as liñas feitas. Cada característica multiplícase polo
+ * seu peso, e canto maior é o resultado mellor é o chan
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class Heuristic {
+
+    /**
+     * Pesos por defecto, axustados para un panel de 10 columnas pero que
+     * tamén xogan ben no noso
+     */
+    public final static Heuristic DEFAULT = new Heuristic(-0.510066, -0.35663, -0.184483, 0.760666);
+
+    /**
+     * Máscara das columnas que teñen unha veciña á dereita
+     */
+    private final static int INNER_COLUMNS = (1 << (Game.COLUMNS - 1)) - 1;
+
+    private final double heightWeight;
+    private final double holesWeight;
+    private final double bumpinessWeight;
+    private final double linesWeight;
+
+    /**
+     * Construtor da clase
+     *
+     * @param heightWeight Peso da suma das alturas das columnas
+     * @param holesWeight Peso do número de ocos tapados
+     * @param bumpinessWeight Peso da diferenza de altura entre columnas
+     * veciñas
+     * @param linesWeight Peso das liñas feitas
+     */
+    public Heuristic(double heightWeight, double holesWeight, double bumpinessWeight, double linesWeight) {
+        this.heightWeight = heightWeight;
+        this.holesWeight = holesWeight;
+        this.bumpinessWeight = bumpinessWeight;
+        this.linesWeight = linesWeight;
+    }
+
+    /**
+     * @return Peso da suma das alturas das columnas
+     */
+    public double getHeightWeight() {
+        return heightWeight;
+    }
+
+    /**
+     * @return Peso do número de ocos tapados
+     */
+    public double getHolesWeight() {
+        return holesWeight;
+    }
+
+    /**
+     * @return Peso da diferenza de altura entre columnas veciñas
+     */
+    public double getBumpinessWeight() {
+        return bumpinessWeight;
+    }
+
+    /**
+     * @return Peso das liñas feitas
+     */
+    public double getLinesWeight() {
+        return linesWeight;
+    }
+
+    /**
+     * Valora un chan tendo en conta as liñas feitas para chegar a el
+     *
+     * @param ground Filas do chan en forma de máscara de bits
+     * @param lines Liñas feitas ao chegar a ese chan
+     * @return Valoración do chan
+     */
+    public double evaluate(int[] ground, int lines) {
+        return evaluateGround(ground) + linesWeight * lines;
+    }
+
+    /**
+     * Valora un chan sen ter en conta as liñas feitas, que non dependen só do
+     * chan. Percorre as filas de arriba a abaixo levando a máscara das
+     * columnas que xa teñen algún cadrado por enriba, polo que todas as
+     * características se contan con operacións de bits, sen crear obxectos
+     *
+     * @param ground Filas do chan en forma de máscara de bits
+     * @return Valoración do chan
+     */
+    public double evaluateGround(int[] ground) {
+        int covered = 0;
+        int height = 0;
+        int holes = 0;
+        int bumpiness = 0;
+        for (int row = 0; row < Game.ROWS; row++) {
+            covered |= ground[row];
+            // Cada columna cuberta suma un á súa altura nesta fila
+            height += Integer.bitCount(covered);
+            holes += Integer.bitCount(covered & ~ground[row]);
+            // Dúas veciñas teñen distinta altura en tantas filas como a diferenza
+            bumpiness += Integer.bitCount((covered ^ (covered >>> 1)) & INNER_COLUMNS);
+        }
+        return heightWeight * height + holesWeight * holes + bumpinessWeight * bumpiness;
+    }
+}
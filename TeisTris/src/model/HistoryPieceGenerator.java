@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Xerador con historial: lembra os últimos tipos de peza que saíron e volve
+ * tirar ao chou, ata un número de intentos, se a peza escollida está no
+ * historial. Así as pezas repítense menos que co xerador uniforme
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class HistoryPieceGenerator implements PieceGenerator {
+
+    /**
+     * Tamaño do historial e número de intentos por defecto
+     */
+    public final static int DEFAULT_HISTORY = 4;
+    public final static int DEFAULT_ROLLS = 6;
+
+    private final long seed;
+    private final SplittableRandom random;
+    private final int rolls;
+
+    /**
+     * Últimos tipos de peza que saíron, e posición do máis antigo
+     */
+    private final int[] history;
+    private int oldest = 0;
+
+    /**
+     * Construtor da clase co historial e intentos por defecto
+     *
+     * @param seed Semente do xerador
+     */
+    public HistoryPieceGenerator(long seed) {
+        this(seed, DEFAULT_HISTORY, DEFAULT_ROLLS);
+    }
+
+    /**
+     * Construtor da clase
+     *
+     * @param seed Semente do xerador
+     * @param historySize Número de pezas que se lembran
+     * @param rolls Número máximo de veces que se tira por cada peza
+     */
+    public HistoryPieceGenerator(long seed, int historySize, int rolls) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.rolls = rolls;
+        // O historial comeza sen ningún tipo de peza
+        this.history = new int[historySize];
+        Arrays.fill(history, -1);
+    }
+
+    @Override
+    public int nextType() {
+        int type = random.nextInt(Game.PIECE_TYPES);
+        for (int roll = 1; roll < rolls && inHistory(type); roll++) {
+            type = random.nextInt(Game.PIECE_TYPES);
+        }
+        if (history.length > 0) {
+            history[oldest] = type;
+            oldest = (oldest + 1) % history.length;
+        }
+        return type;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String getName() {
+        return "history";
+    }
+
+    /**
+     * @param type Tipo de peza
+     * @return true se o tipo está no historial, se non false
+     */
+    private boolean inHistory(int type) {
+        for (int past : history) {
+            if (past == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
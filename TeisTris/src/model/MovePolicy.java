@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+/**
+ * Interface que decide como se move a peza actual cando o xogo se executa sen
+ * xogador, por exemplo nas simulacións
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public interface MovePolicy {
+
+    /**
+     * Move ou rota a peza actual do xogo. Chámase en cada tick, antes de que
+     * a peza baixe unha fila
+     *
+     * @param game Xogo no que mover a peza
+     */
+    void move(Game game);
+}
@@ -16,12 +16,15 @@
  */
 package model;
 
+import java.awt.Color;
+
 /**
- * Clase que implementa a peza cadrada do xogo do Tetris
+ * Clase que implementa a peza cadrada do xogo do Tetris. O estado da peza é
+ * só a súa posición e orientación, polo que se pode copiar facilmente
  *
  * @author Jorge Val Gil e Adrían Fernández Pérez
  */
-public abstract class Piece {
+public class Piece {
 
     /**
      * Referenza ao obxecto xogo
@@ -33,6 +36,79 @@ public abstract class Piece {
      */
     protected Square squares[] = new Square[4];
 
+    /**
+     * Táboas de rotación do tipo de peza
+     */
+    private PieceShape shape;
+
+    /**
+     * Columna e fila da esquina superior esquerda da caixa da peza
+     */
+    private int column, row;
+
+    /**
+     * Columna na que aparece a peza ao saír
+     */
+    private int spawnColumn;
+
+    /**
+     * Orientación actual da peza, que é unha posición nas táboas de shape
+     */
+    private int orientation = 0;
+
+    /**
+     * Construtor da clase, que coloca a peza na fila superior do panel
+     *
+     * @param game Referenza ao obxecto xogo
+     * @param shape Táboas de rotación do tipo de peza
+     * @param fillColor Cor dos cadrados da peza
+     * @param column Columna inicial da caixa da peza
+     */
+    protected Piece(Game game, PieceShape shape, Color fillColor, int column) {
+        this.game = game;
+        this.shape = shape;
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = new Square(0, 0, fillColor);
+        }
+        this.spawnColumn = column;
+        setState(column, 0, 0);
+    }
+
+    /**
+     * Construtor de copia, que crea unha peza co mesmo tipo, posición e
+     * orientación que outra
+     *
+     * @param other Peza a copiar
+     */
+    public Piece(Piece other) {
+        this(other.game, other.shape, other.squares[0].getFillColor(), other.column);
+        copyFrom(other);
+    }
+
+    /**
+     * Copia nesta peza o tipo, a posición e a orientación doutra, sen crear
+     * ningún obxecto
+     *
+     * @param other Peza a copiar
+     */
+    public void copyFrom(Piece other) {
+        game = other.game;
+        shape = other.shape;
+        for (int i = 0; i < squares.length; i++) {
+            squares[i].setFillColor(other.squares[i].getFillColor());
+        }
+        spawnColumn = other.spawnColumn;
+        setState(other.column, other.row, other.orientation);
+    }
+
+    /**
+     * Volve poñer a peza na posición e orientación coas que sae, para
+     * reutilizala como nova peza sen crear ningún obxecto
+     */
+    void respawn() {
+        setState(spawnColumn, 0, 0);
+    }
+
     /**
      * Get de squares
      *
@@ -42,26 +118,41 @@ public abstract class Piece {
         return squares;
     }
 
+    /**
+     * @return Columna da esquina superior esquerda da caixa da peza
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return Fila da esquina superior esquerda da caixa da peza
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return Orientación actual da peza
+     */
+    public int getOrientation() {
+        return orientation;
+    }
+
+    /**
+     * @return Táboas de rotación do tipo de peza
+     */
+    public PieceShape getShape() {
+        return shape;
+    }
+
     /**
      * Move a ficha á dereita se é posible
      *
      * @return true se o movemento da ficha é posible, se non false
      */
     public boolean moveRight() {
-        boolean isValid = true;
-
-        for (Square square : squares) {
-            if (!game.isValidPosition(square.getX() + Game.SQUARE_SIDE, square.getY())) {
-                isValid = false;
-            }
-        }
-
-        if (isValid) {
-            for (Square square : squares) {
-                square.setX(square.getX() + Game.SQUARE_SIDE);
-            }
-        }
-        return isValid;
+        return transform(1, 0, orientation);
     }
 
     /**
@@ -70,21 +161,7 @@ public abstract class Piece {
      * @return true se o movemento da ficha é posible, se non false
      */
     public boolean moveLeft() {
-        boolean isValid = true;
-
-        for (Square square : squares) {
-            if (!game.isValidPosition(square.getX() - Game.SQUARE_SIDE, square.getY())) {
-                isValid = false;
-            }
-        }
-
-        if (isValid) {
-            for (Square square : squares) {
-                square.setX(square.getX() - Game.SQUARE_SIDE);
-            }
-        }
-        return isValid;
-
+        return transform(-1, 0, orientation);
     }
 
     /**
@@ -93,27 +170,71 @@ public abstract class Piece {
      * @return true se o movemento da ficha é posible, se non false
      */
     public boolean moveDown() {
-        boolean isValid = true;
+        return transform(0, 1, orientation);
+    }
 
-        for (Square square : squares) {
-            if (!game.isValidPosition(square.getX(), square.getY() + Game.SQUARE_SIDE)) {
-                isValid = false;
-            }
-        }
+    /**
+     * Move a ficha varias filas abaixo se é posible. Só se comproba a
+     * posición final, así que quen a chama debe saber que o camiño está libre
+     *
+     * @param rows Filas a baixar
+     * @return true se o movemento da ficha é posible, se non false
+     */
+    boolean moveDown(int rows) {
+        return transform(0, rows, orientation);
+    }
 
-        if (isValid) {
-            for (Square square : squares) {
-                square.setY(square.getY() + Game.SQUARE_SIDE);
+    /**
+     * Rota a ficha se é posible. Próbase a seguinte orientación na posición
+     * actual e, se non colle, desprazada segundo a táboa de desprazamentos
+     * da peza
+     *
+     * @return true se o movemento da ficha é posible, se non false
+     */
+    public boolean rotate() {
+        if (shape.getOrientations() == 1) {
+            return false;
+        }
+        int next = (orientation + 1) % shape.getOrientations();
+        for (int[] kick : shape.getKicks()) {
+            if (transform(kick[0], kick[1], next)) {
+                return true;
             }
         }
-        return isValid;
+        return false;
     }
 
     /**
-     * Método abstracto, usase nas suas subsclases. Rota a ficha se é posible
+     * Despraza e orienta a ficha se colle na nova posición. A posición e a
+     * orientación cambian á vez, nunca queda a medio mover
      *
+     * @param columns Columnas a desprazar
+     * @param rows Filas a desprazar
+     * @param newOrientation Nova orientación da peza
      * @return true se o movemento da ficha é posible, se non false
      */
-    public abstract boolean rotate();
+    private boolean transform(int columns, int rows, int newOrientation) {
+        if (!game.fits(shape.getMasks(newOrientation), column + columns, row + rows)) {
+            return false;
+        }
+        setState(column + columns, row + rows, newOrientation);
+        return true;
+    }
 
+    /**
+     * Establece a posición e a orientación da peza e coloca os seus cadrados
+     *
+     * @param column Columna da esquina superior esquerda da caixa
+     * @param row Fila da esquina superior esquerda da caixa
+     * @param orientation Orientación da peza
+     */
+    private void setState(int column, int row, int orientation) {
+        this.column = column;
+        this.row = row;
+        this.orientation = orientation;
+        for (int i = 0; i < squares.length; i++) {
+            squares[i].setColumn(column + shape.getColumnOffset(orientation, i));
+            squares[i].setRow(row + shape.getRowOffset(orientation, i));
+        }
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+/**
+ * Interface que decide o tipo das pezas que van saíndo no xogo. Todas as
+ * implementacións parten dunha semente, polo que a mesma semente dá sempre a
+ * mesma secuencia de pezas
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public interface PieceGenerator {
+
+    /**
+     * @return Tipo da seguinte peza, entre 0 e Game.PIECE_TYPES - 1
+     */
+    int nextType();
+
+    /**
+     * @return Semente coa que se creou o xerador
+     */
+    long getSeed();
+
+    /**
+     * @return Nome do xerador, o mesmo que acepta create
+     */
+    String getName();
+
+    /**
+     * Crea un xerador a partir do seu nome
+     *
+     * @param name Nome do xerador: uniform, bag ou history
+     * @param seed Semente do xerador
+     * @return O xerador
+     */
+    static PieceGenerator create(String name, long seed) {
+        switch (name) {
+            case "uniform":
+                return new UniformPieceGenerator(seed);
+            case "bag":
+                return new BagPieceGenerator(seed);
+            case "history":
+                return new HistoryPieceGenerator(seed);
+            default:
+                throw new IllegalArgumentException("Xerador de pezas descoñecido: " + name);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Clase inmutable coas táboas de rotación dun tipo de peza. Cada orientación
+ * gárdase como os desprazamentos dos catro cadrados dentro dunha caixa de 4x4
+ * e, xa precalculada, como unha máscara de bits por fila da caixa
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public final class PieceShape {
+
+    /**
+     * Tamaño do lado da caixa na que se definen as orientacións
+     */
+    public final static int BOX = 4;
+
+    /**
+     * Desprazamentos (columna, fila) que se proban ao rotar unha peza se non
+     * colle na súa posición
+     */
+    public final static int[][] STANDARD_KICKS = {{0, 0}, {-1, 0}, {1, 0}, {0, -1}};
+
+    /**
+     * Desprazamentos que se proban ao rotar a barra, que precisa apartarse
+     * ata dúas columnas da parede
+     */
+    public final static int[][] BAR_KICKS = {{0, 0}, {-1, 0}, {1, 0}, {-2, 0}, {2, 0}, {0, -1}};
+
+    /**
+     * Desprazamentos de cada cadrado en cada orientación:
+     * offsets[orientación][cadrado] = {columna, fila}
+     */
+    private final int[][][] offsets;
+
+    /**
+     * Máscaras de cada orientación: masks[orientación][fila da caixa]
+     */
+    private final int[][] masks;
+
+    /**
+     * Fila do cadrado máis baixo de cada columna da caixa, ou -1 se a columna
+     * está baleira: bottoms[orientación][columna da caixa]
+     */
+    private final int[][] bottoms;
+
+    /**
+     * Desprazamentos que se proban ao rotar
+     */
+    private final int[][] kicks;
+
+    /**
+     * Construtor da clase, que precalcula as máscaras de cada orientación
+     *
+     * @param offsets Desprazamentos de cada cadrado en cada orientación
+     * @param kicks Desprazamentos que se proban ao rotar
+     */
+    public PieceShape(int[][][] offsets, int[][] kicks) {
+        this.offsets = offsets;
+        this.kicks = kicks;
+        this.masks = new int[offsets.length][BOX];
+        this.bottoms = new int[offsets.length][BOX];
+        for (int orientation = 0; orientation < offsets.length; orientation++) {
+            Arrays.fill(bottoms[orientation], -1);
+            for (int[] offset : offsets[orientation]) {
+                masks[orientation][offset[1]] |= 1 << offset[0];
+                bottoms[orientation][offset[0]] = Math.max(bottoms[orientation][offset[0]], offset[1]);
+            }
+        }
+    }
+
+    /**
+     * @return Número de orientacións distintas da peza
+     */
+    public int getOrientations() {
+        return offsets.length;
+    }
+
+    /**
+     * @param orientation Orientación da peza
+     * @param square Número de cadrado, de 0 a 3
+     * @return Columna do cadrado dentro da caixa
+     */
+    public int getColumnOffset(int orientation, int square) {
+        return offsets[orientation][square][0];
+    }
+
+    /**
+     * @param orientation Orientación da peza
+     * @param square Número de cadrado, de 0 a 3
+     * @return Fila do cadrado dentro da caixa
+     */
+    public int getRowOffset(int orientation, int square) {
+        return offsets[orientation][square][1];
+    }
+
+    /**
+     * @param orientation Orientación da peza
+     * @return Máscaras de bits de cada fila da caixa. Non se deben modificar
+     */
+    int[] getMasks(int orientation) {
+        return masks[orientation];
+    }
+
+    /**
+     * @param orientation Orientación da peza
+     * @return Fila do cadrado máis baixo de cada columna da caixa, ou -1 se a
+     * columna está baleira. Non se deben modificar
+     */
+    int[] getBottoms(int orientation) {
+        return bottoms[orientation];
+    }
+
+    /**
+     * @return Desprazamentos que se proban ao rotar. Non se deben modificar
+     */
+    int[][] getKicks() {
+        return kicks;
+    }
+}
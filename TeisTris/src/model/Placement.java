@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+/**
+ * Colocación final dunha peza atopada por PlacementSearch
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class Placement {
+
+    private int orientation;
+    private int column;
+    private int row;
+    private int lines;
+    private double score = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Construtor da clase, para unha colocación aínda sen valorar
+     */
+    Placement() {
+    }
+
+    /**
+     * Garda unha colocación se é mellor ca esta
+     *
+     * @param orientation Orientación da peza
+     * @param column Columna da caixa da peza
+     * @param row Fila da caixa da peza
+     * @param lines Liñas que fai a peza
+     * @param ground Chan resultante, que non se garda
+     * @param score Valoración do chan resultante
+     */
+    void offer(int orientation, int column, int row, int lines, int[] ground, double score) {
+        if (score > this.score) {
+            this.orientation = orientation;
+            this.column = column;
+            this.row = row;
+            this.lines = lines;
+            this.score = score;
+        }
+    }
+
+    /**
+     * @param other Outra colocación
+     * @return A mellor das dúas
+     */
+    Placement best(Placement other) {
+        return (other.score > score) ? other : this;
+    }
+
+    /**
+     * @return true se se gardou algunha colocación
+     */
+    boolean isFound() {
+        return score != Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * @return Orientación da peza
+     */
+    public int getOrientation() {
+        return orientation;
+    }
+
+    /**
+     * @return Columna da esquina superior esquerda da caixa da peza
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return Fila da esquina superior esquerda da caixa da peza
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return Liñas que fai a peza ao colocala
+     */
+    public int getLines() {
+        return lines;
+    }
+
+    /**
+     * @return Valoración do chan que queda
+     */
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+/**
+ * Interface dos algoritmos que deciden onde colocar a peza actual dun xogo
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public interface PlacementFinder {
+
+    /**
+     * @param game Xogo
+     * @return Colocación final para a peza actual, ou null se non hai ningunha
+     */
+    Placement findBest(Game game);
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Procura a mellor colocación final dunha peza. Proba todas as orientacións
+ * e, para cada unha, todas as columnas ás que se pode chegar desprazando a
+ * peza desde a súa posición; deixa caer a peza e valora o chan resultante
+ * cunha Heuristic. Traballa sobre copias das máscaras do chan, así que non
+ * modifica o xogo e varias procuras poden executarse á vez.
+ * <p>
+ * Se ten unha TranspositionTable, garda nela a valoración de cada chan
+ * resultante e non volve calculala se o chan xa apareceu. A táboa só se pode
+ * compartir entre procuras coa mesma Heuristic
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class PlacementSearch implements PlacementFinder {
+
+    /**
+     * Valoración dunha colocación que deixa cadrados por enriba do panel, e
+     * polo tanto remata o xogo
+     */
+    final static double LOSING_SCORE = -Double.MAX_VALUE;
+
+    /**
+     * Recibe cada colocación que proba a procura
+     */
+    interface Visitor {
+
+        /**
+         * @param orientation Orientación da peza
+         * @param column Columna da caixa da peza
+         * @param row Fila final da caixa da peza
+         * @param lines Liñas que fai a peza
+         * @param ground Chan resultante. Só é válido durante a chamada
+         * @param score Valoración do chan resultante
+         */
+        void visit(int orientation, int column, int row, int lines, int[] ground, double score);
+    }
+
+    private final Heuristic heuristic;
+
+    /**
+     * Táboa coas valoracións dos chans xa vistos, ou null para non gardalas
+     */
+    private final TranspositionTable table;
+
+    /**
+     * Construtor da clase, sen táboa de transposición
+     *
+     * @param heuristic Función que valora os chans
+     */
+    public PlacementSearch(Heuristic heuristic) {
+        this(heuristic, null);
+    }
+
+    /**
+     * Construtor da clase
+     *
+     * @param heuristic Función que valora os chans
+     * @param table Táboa onde gardar as valoracións dos chans, ou null
+     */
+    public PlacementSearch(Heuristic heuristic, TranspositionTable table) {
+        this.heuristic = heuristic;
+        this.table = table;
+    }
+
+    /**
+     * @return Función que valora os chans
+     */
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * @return Táboa onde se gardan as valoracións dos chans, ou null
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Procura a mellor colocación da peza actual dun xogo
+     *
+     * @param game Xogo
+     * @return A mellor colocación, ou null se a peza non colle en ningunha
+     */
+    @Override
+    public Placement findBest(Game game) {
+        startSearch();
+        Piece piece = game.getCurrentPiece();
+        return findBest(copyGround(game), game.copyColumnTops(), game.getGroundHash(), piece.getShape(),
+                piece.getColumn(), piece.getRow());
+    }
+
+    /**
+     * Procura a mellor colocación da peza actual dun xogo repartindo as
+     * orientacións entre os fíos do ForkJoinPool común
+     *
+     * @param game Xogo
+     * @return A mellor colocación, ou null se a peza non colle en ningunha
+     */
+    public Placement findBestParallel(Game game) {
+        startSearch();
+        Piece piece = game.getCurrentPiece();
+        int[] ground = copyGround(game);
+        int[] tops = game.copyColumnTops();
+        long hash = game.getGroundHash();
+        PieceShape shape = piece.getShape();
+        Placement best = IntStream.range(0, shape.getOrientations()).parallel()
+                .mapToObj(orientation -> {
+                    Placement placement = new Placement();
+                    search(ground, tops, hash, shape, orientation, piece.getColumn(), piece.getRow(),
+                            new int[Game.ROWS], placement::offer);
+                    return placement;
+                })
+                .reduce(new Placement(), Placement::best);
+        return best.isFound() ? best : null;
+    }
+
+    /**
+     * Empeza unha xeración nova na táboa, se hai, para que as entradas das
+     * pezas anteriores sexan as primeiras en substituírse
+     */
+    void startSearch() {
+        if (table != null) {
+            table.nextGeneration();
+        }
+    }
+
+    /**
+     * Procura a mellor colocación dunha peza nun chan calquera
+     *
+     * @param ground Filas do chan en forma de máscara de bits
+     * @param shape Forma da peza
+     * @param column Columna inicial da caixa da peza
+     * @param row Fila inicial da caixa da peza
+     * @return A mellor colocación, ou null se a peza non colle en ningunha
+     */
+    public Placement findBest(int[] ground, PieceShape shape, int column, int row) {
+        return findBest(ground, columnTops(ground), (table == null) ? 0 : Zobrist.hash(ground), shape, column, row);
+    }
+
+    /**
+     * Procura a mellor colocación dunha peza nun chan do que xa se coñecen as
+     * filas máis altas de cada columna e o hash
+     */
+    private Placement findBest(int[] ground, int[] tops, long hash, PieceShape shape, int column, int row) {
+        Placement best = new Placement();
+        expand(ground, tops, hash, shape, column, row, new int[Game.ROWS], best::offer);
+        return best.isFound() ? best : null;
+    }
+
+    /**
+     * Proba todas as colocacións dunha peza nun chan e pásallas a un Visitor
+     *
+     * @param ground Filas do chan en forma de máscara de bits
+     * @param hash Hash de Zobrist do chan, que só se usa se hai táboa
+     * @param shape Forma da peza
+     * @param column Columna inicial da caixa da peza
+     * @param row Fila inicial da caixa da peza
+     * @param scratch Filas onde se calcula cada chan resultante
+     * @param visitor Obxecto que recibe as colocacións
+     */
+    void expand(int[] ground, long hash, PieceShape shape, int column, int row, int[] scratch, Visitor visitor) {
+        expand(ground, columnTops(ground), hash, shape, column, row, scratch, visitor);
+    }
+
+    /**
+     * Proba todas as colocacións dunha peza nun chan do que xa se coñecen as
+     * filas máis altas de cada columna
+     */
+    private void expand(int[] ground, int[] tops, long hash, PieceShape shape, int column, int row, int[] scratch,
+            Visitor visitor) {
+        for (int orientation = 0; orientation < shape.getOrientations(); orientation++) {
+            search(ground, tops, hash, shape, orientation, column, row, scratch, visitor);
+        }
+    }
+
+    /**
+     * Proba todas as columnas ás que chega a peza nunha orientación
+     *
+     * @param ground Filas do chan
+     * @param tops Fila do cadrado máis alto de cada columna do chan
+     * @param hash Hash de Zobrist do chan
+     * @param shape Forma da peza
+     * @param orientation Orientación que se proba
+     * @param column Columna inicial da caixa da peza
+     * @param row Fila inicial da caixa da peza
+     * @param scratch Filas onde se calcula cada chan resultante
+     * @param visitor Obxecto que recibe as colocacións
+     */
+    private void search(int[] ground, int[] tops, long hash, PieceShape shape, int orientation,
+            int column, int row, int[] scratch, Visitor visitor) {
+        int[] masks = shape.getMasks(orientation);
+        int[] bottoms = shape.getBottoms(orientation);
+        // Desprazamos a peza cara á esquerda e despois cara á dereita ata chocar
+        for (int c = column; Game.fits(ground, masks, c, row); c--) {
+            evaluate(ground, tops, hash, masks, bottoms, orientation, c, row, scratch, visitor);
+        }
+        for (int c = column + 1; Game.fits(ground, masks, c, row); c++) {
+            evaluate(ground, tops, hash, masks, bottoms, orientation, c, row, scratch, visitor);
+        }
+    }
+
+    /**
+     * Deixa caer a peza nunha columna e valora o chan resultante
+     */
+    private void evaluate(int[] ground, int[] tops, long hash, int[] masks, int[] bottoms, int orientation,
+            int column, int row, int[] scratch, Visitor visitor) {
+        int finalRow = dropRow(ground, tops, masks, bottoms, column, row);
+        int lines = place(ground, masks, column, finalRow, scratch);
+        double score;
+        if (finalRow + topRow(masks) < 0) {
+            score = LOSING_SCORE;
+        } else if (table == null) {
+            score = heuristic.evaluate(scratch, lines);
+        } else {
+            // Se non se borrou ningunha liña, o hash só cambia nas celas da peza
+            long newHash = (lines == 0) ? hash ^ Zobrist.piece(masks, column, finalRow) : Zobrist.hash(scratch);
+            double groundScore = table.get(newHash, 0);
+            if (Double.isNaN(groundScore)) {
+                groundScore = heuristic.evaluateGround(scratch);
+                table.put(newHash, 0, groundScore);
+            }
+            score = groundScore + heuristic.getLinesWeight() * lines;
+        }
+        visitor.visit(orientation, column, finalRow, lines, scratch, score);
+    }
+
+    /**
+     * Calcula onde queda unha peza ao deixala caer. Se a peza está por enriba
+     * de todas as columnas que ocupa, chega con mirar a altura desas columnas;
+     * se non, baixamos a peza fila a fila
+     *
+     * @param ground Filas do chan
+     * @param tops Fila do cadrado máis alto de cada columna do chan
+     * @param masks Máscaras da peza
+     * @param bottoms Fila do cadrado máis baixo de cada columna da caixa
+     * @param column Columna da caixa da peza
+     * @param row Fila inicial da caixa da peza, na que a peza colle
+     * @return Fila da caixa da peza despois de deixala caer
+     */
+    static int dropRow(int[] ground, int[] tops, int[] masks, int[] bottoms, int column, int row) {
+        int finalRow = Integer.MAX_VALUE;
+        for (int i = 0; i < bottoms.length; i++) {
+            if (bottoms[i] >= 0) {
+                int top = tops[column + i];
+                if (top <= row + bottoms[i]) {
+                    // Hai chan por enriba da peza nesta columna
+                    while (Game.fits(ground, masks, column, row + 1)) {
+                        row++;
+                    }
+                    return row;
+                }
+                finalRow = Math.min(finalRow, top - bottoms[i] - 1);
+            }
+        }
+        return finalRow;
+    }
+
+    /**
+     * @param ground Filas do chan
+     * @return Fila do cadrado máis alto de cada columna, ou ROWS se a columna
+     * está baleira
+     */
+    static int[] columnTops(int[] ground) {
+        int[] tops = new int[Game.COLUMNS];
+        Arrays.fill(tops, Game.ROWS);
+        int covered = 0;
+        for (int row = 0; row < Game.ROWS && covered != Game.FULL_ROW; row++) {
+            int newColumns = ground[row] & ~covered;
+            covered |= newColumns;
+            while (newColumns != 0) {
+                tops[Integer.numberOfTrailingZeros(newColumns)] = row;
+                newColumns &= newColumns - 1;
+            }
+        }
+        return tops;
+    }
+
+    /**
+     * Coloca unha peza no chan e borra as liñas completas
+     *
+     * @param ground Filas do chan, que non se modifican
+     * @param masks Máscaras da peza
+     * @param column Columna da caixa da peza
+     * @param row Fila da caixa da peza
+     * @param result Onde escribir as filas do chan resultante
+     * @return Número de liñas borradas
+     */
+    static int place(int[] ground, int[] masks, int column, int row, int[] result) {
+        System.arraycopy(ground, 0, result, 0, Game.ROWS);
+        for (int i = 0; i < masks.length; i++) {
+            int r = row + i;
+            if (r >= 0 && r < Game.ROWS) {
+                result[r] |= (column >= 0) ? masks[i] << column : masks[i] >>> -column;
+            }
+        }
+        // Só as filas da peza poden quedar completas
+        int lines = 0;
+        for (int i = 0; i < masks.length; i++) {
+            int r = row + i;
+            if (r >= 0 && r < Game.ROWS && result[r] == Game.FULL_ROW) {
+                lines++;
+            }
+        }
+        if (lines == 0) {
+            return 0;
+        }
+        int target = Game.ROWS - 1;
+        for (int r = Game.ROWS - 1; r >= 0; r--) {
+            if (result[r] != Game.FULL_ROW) {
+                result[target--] = result[r];
+            }
+        }
+        while (target >= 0) {
+            result[target--] = 0;
+        }
+        return lines;
+    }
+
+    /**
+     * @param masks Máscaras da peza
+     * @return Primeira fila da caixa que ten algún cadrado
+     */
+    private static int topRow(int[] masks) {
+        int i = 0;
+        while (masks[i] == 0) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @param game Xogo
+     * @return Copia das filas do chan do xogo
+     */
+    private static int[] copyGround(Game game) {
+        int[] ground = new int[Game.ROWS];
+        for (int row = 0; row < Game.ROWS; row++) {
+            ground[row] = game.getGroundRow(row);
+        }
+        return ground;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Política que fai en cada tick un movemento ao chou: esquerda, dereita,
+ * rotar ou nada
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class RandomMovePolicy implements MovePolicy {
+
+    /**
+     * Xerador de números aleatorios da política
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Construtor da clase
+     *
+     * @param seed Semente do xerador de números aleatorios
+     */
+    public RandomMovePolicy(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void move(Game game) {
+        switch (random.nextInt(4)) {
+            case 0 ->
+                game.movePieceLeft();
+            case 1 ->
+                game.movePieceRight();
+            case 2 ->
+                game.rotatePiece();
+            default -> {
+                // Deixamos caer a peza sen movela
+            }
+        }
+    }
+}
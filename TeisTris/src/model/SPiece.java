@@ -14,7 +14,14 @@ import java.awt.Color;
  */
 public class SPiece extends Piece {
 
-    private int position = 0;
+    /**
+     * Táboas de rotación da peza
+     */
+    private final static PieceShape SHAPE = new PieceShape(new int[][][]{
+        {{2, 0}, {1, 0}, {1, 1}, {0, 1}},
+        {{2, 2}, {2, 1}, {1, 1}, {1, 0}},
+        {{0, 2}, {1, 2}, {1, 1}, {2, 1}},
+        {{0, 0}, {0, 1}, {1, 1}, {1, 2}}}, PieceShape.STANDARD_KICKS);
 
     /**
      * Constructor
@@ -22,96 +29,6 @@ public class SPiece extends Piece {
      * @param game parámetro da clase game
      */
     public SPiece(Game game) {
-
-        this.game = game;
-
-        squares[0] = new Square(Game.MAX_X / 2 + Game.SQUARE_SIDE, 0, Color.PINK, game);
-        squares[1] = new Square(Game.MAX_X / 2, 0,
-                Color.PINK, game);
-        squares[2] = new Square(Game.MAX_X / 2, Game.SQUARE_SIDE, Color.PINK, game);
-
-        squares[3] = new Square(Game.MAX_X / 2 - Game.SQUARE_SIDE, Game.SQUARE_SIDE, Color.PINK, game);
-    }
-
-    /**
-     * Método da clase Piece, redefinido. Rota a ficha se é posible
-     *
-     * @return true se o movemento da ficha é posible, se non false
-     */
-    @Override
-    public boolean rotate() {
-        boolean rotatepiece = false;
-        switch (position) {
-            case 0:
-                if (game.isValidPosition(squares[0].getX(), squares[0].getY() + Game.SQUARE_SIDE * 2) && (game.isValidPosition(squares[1].getX() + Game.SQUARE_SIDE, squares[1].getY() + Game.SQUARE_SIDE))
-                        && (game.isValidPosition(squares[3].getX() + Game.SQUARE_SIDE, squares[3].getY() - Game.SQUARE_SIDE))) {
-                    squares[0].setY(squares[0].getY() + Game.SQUARE_SIDE * 2);
-                    squares[1].setX(squares[1].getX() + Game.SQUARE_SIDE);
-                    squares[1].setY(squares[1].getY() + Game.SQUARE_SIDE);
-                    squares[3].setX(squares[3].getX() + Game.SQUARE_SIDE);
-                    squares[3].setY(squares[3].getY() - Game.SQUARE_SIDE);
-
-                    position = 1;
-                    rotatepiece = true;
-                } else {
-                    rotatepiece = false;
-                }
-                break;
-
-            case 1:
-                if (game.isValidPosition(squares[0].getX() - 2 * Game.SQUARE_SIDE, squares[0].getY())
-                        && (game.isValidPosition(squares[1].getX() - Game.SQUARE_SIDE, squares[1].getY() + Game.SQUARE_SIDE)
-                        && (game.isValidPosition(squares[3].getX() + Game.SQUARE_SIDE, squares[3].getY() + Game.SQUARE_SIDE)))) {
-                    squares[0].setX(squares[0].getX() - 2 * Game.SQUARE_SIDE);
-                    squares[1].setX(squares[1].getX() - Game.SQUARE_SIDE);
-                    squares[1].setY(squares[1].getY() + Game.SQUARE_SIDE);
-                    squares[3].setX(squares[3].getX() + Game.SQUARE_SIDE);
-                    squares[3].setY(squares[3].getY() + Game.SQUARE_SIDE);
-
-                    position = 2;
-                    rotatepiece = true;
-                } else {
-                    rotatepiece = false;
-                }
-                break;
-
-            case 2:
-                if (game.isValidPosition(squares[0].getX(), squares[0].getY() - 2 * Game.SQUARE_SIDE)
-                        && (game.isValidPosition(squares[1].getX() - Game.SQUARE_SIDE, squares[1].getY() - Game.SQUARE_SIDE)
-                        && (game.isValidPosition(squares[3].getX() - Game.SQUARE_SIDE, squares[3].getY() + Game.SQUARE_SIDE)))) {
-                    squares[0].setY(squares[0].getY() - 2 * Game.SQUARE_SIDE);
-                    squares[1].setX(squares[1].getX() - Game.SQUARE_SIDE);
-                    squares[1].setY(squares[1].getY() - Game.SQUARE_SIDE);
-                    squares[3].setX(squares[3].getX() - Game.SQUARE_SIDE);
-                    squares[3].setY(squares[3].getY() + Game.SQUARE_SIDE);
-
-                    position = 3;
-                    rotatepiece = true;
-                } else {
-                    rotatepiece = false;
-                }
-                break;
-
-            case 3:
-                if (game.isValidPosition(squares[0].getX() + 2 * Game.SQUARE_SIDE, squares[0].getY())
-                        && (game.isValidPosition(squares[1].getX() + Game.SQUARE_SIDE, squares[1].getY() - Game.SQUARE_SIDE)
-                        && (game.isValidPosition(squares[3].getX() - Game.SQUARE_SIDE, squares[3].getY() - Game.SQUARE_SIDE)))) {
-
-                    squares[0].setX(squares[0].getX() + 2 * Game.SQUARE_SIDE);
-                    squares[1].setX(squares[1].getX() + Game.SQUARE_SIDE);
-                    squares[1].setY(squares[1].getY() - Game.SQUARE_SIDE);
-                    squares[3].setX(squares[3].getX() - Game.SQUARE_SIDE);
-                    squares[3].setY(squares[3].getY() - Game.SQUARE_SIDE);
-
-                    position = 0;
-                    rotatepiece = true;
-                } else {
-                    rotatepiece = false;
-                }
-                break;
-        }
-
-        return rotatepiece;
+        super(game, SHAPE, Color.PINK, Game.COLUMNS / 2 - 1);
     }
-
 }
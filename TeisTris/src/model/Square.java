@@ -17,9 +17,6 @@
 package model;
 
 import java.awt.Color;
-import javax.swing.JLabel;
-import javax.swing.BorderFactory;
-import javax.swing.border.BevelBorder;
 
 /**
  * Clase que implementa un cadrado do xogo do Tetris
@@ -29,72 +26,58 @@ import javax.swing.border.BevelBorder;
 public class Square {
 
     /**
-     * Coordenadas do cadrado no panel do xogo
+     * Columna e fila do cadrado no panel do xogo
      */
-    private int x, y;
-    /**
-     * Etiqueta que mostra o cadrado no panel
-     */
-    private JLabel lblSquare;
+    private int column, row;
     /**
      * Referenza á cor do cadrado
      */
     private Color fillColor;
 
     /**
-     * @return Coordenada x do cadrado
+     * @return Columna do cadrado
      */
-    public int getX() {
-        return x;
+    public int getColumn() {
+        return column;
     }
 
     /**
-     * Establece a coordenada x do cadrado
+     * Establece a columna do cadrado
      *
-     * @param x Coordenada x do cadrado
+     * @param column Columna do cadrado
      */
-    public void setX(int x) {
-        this.x = x;
-        // Establecemos a nova localización da etiqueta e repintámola
-        lblSquare.setBounds(x, y, Game.SQUARE_SIDE, Game.SQUARE_SIDE);
-        lblSquare.repaint();
+    public void setColumn(int column) {
+        this.column = column;
     }
 
     /**
-     * @return Coordenada y do cadrado
+     * @return Fila do cadrado
      */
-    public int getY() {
-        return y;
+    public int getRow() {
+        return row;
     }
 
     /**
-     * Establece a coordenada y do cadrado
+     * Establece a fila do cadrado
      *
-     * @param y Coordenada y do cadrado
+     * @param row Fila do cadrado
      */
-    public void setY(int y) {
-        this.y = y;
-        // Establecemos a nova localización da etiqueta e repintámola
-        lblSquare.setBounds(x, y, Game.SQUARE_SIDE, Game.SQUARE_SIDE);
-        lblSquare.repaint();
+    public void setRow(int row) {
+        this.row = row;
     }
 
     /**
-     * Obtén a representación das coordenadas x, y do cadrado en forma de String
-     *
-     * @return O string que representa as coordenadas x,y do cadrado
+     * @return Coordenada x do cadrado en pixels
      */
-    public String getCoordinates() {
-        return String.valueOf(x) + "," + String.valueOf(y);
+    public int getX() {
+        return column * Game.SQUARE_SIDE;
     }
 
     /**
-     * Obtén a referenza á etiqueta que representa graficamente o cadrado
-     *
-     * @return Referenza á etiqueta do cadrado
+     * @return Coordenada y do cadrado en pixels
      */
-    public JLabel getLblSquare() {
-        return lblSquare;
+    public int getY() {
+        return row * Game.SQUARE_SIDE;
     }
 
     /**
@@ -111,35 +94,19 @@ public class Square {
      */
     public void setFillColor(Color fillColor) {
         this.fillColor = fillColor;
-        // Establecemos a cor de fondo para a etiqueta e repintámola
-        lblSquare.setBackground(fillColor);
-        lblSquare.repaint();
     }
 
     /**
-     * Construtor da clase que crea un cadrado establecendo as súas coordenadas,
-     * cor e referenza ao xogo
+     * Construtor da clase que crea un cadrado establecendo a súa columna, fila
+     * e cor
      *
-     * @param x Coordenada x
-     * @param y Coordenada y
+     * @param column Columna do cadrado
+     * @param row Fila do cadrado
      * @param fillColor Referenza á cor do cadrado
-     * @param game Referenza ao obxecto xogo
      */
-    public Square(int x, int y, Color fillColor, Game game) {
-        this.x = x;
-        this.y = y;
+    public Square(int column, int row, Color fillColor) {
+        this.column = column;
+        this.row = row;
         this.fillColor = fillColor;
-
-        // Creamos a etiqueta e establecemos a cor de fondo, coordenadas, 
-        // e atributos para que se vexa no panel do xogo
-        lblSquare = new JLabel();
-        lblSquare.setBackground(fillColor);
-        lblSquare.setBounds(x, y, Game.SQUARE_SIDE, Game.SQUARE_SIDE);
-        lblSquare.setBorder(BorderFactory.createBevelBorder(BevelBorder.RAISED));
-        lblSquare.setVisible(true);
-        lblSquare.setOpaque(true);
-
-        // Chamamos á ventá principal do xogo para pintar o cadrado no panel
-        game.getMainWindow().drawSquare(this.lblSquare);
     }
 }
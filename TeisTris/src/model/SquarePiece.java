@@ -15,28 +15,17 @@ import java.awt.Color;
 public class SquarePiece extends Piece {
 
     /**
-     * Constructor
-     *
-     * @param game parámetro da clase game
+     * Táboas de rotación da peza
      */
-    public SquarePiece(Game game) {
-        this.game = game;
-
-        squares[0] = new Square(Game.MAX_X / 2 - Game.SQUARE_SIDE, 0, Color.BLUE, game);
-        squares[1] = new Square(Game.MAX_X / 2, 0, Color.BLUE, game);
-        squares[2] = new Square(Game.MAX_X / 2 - Game.SQUARE_SIDE, Game.SQUARE_SIDE,
-                Color.BLUE, game);
-        squares[3] = new Square(Game.MAX_X / 2, Game.SQUARE_SIDE, Color.BLUE, game);
-    }
+    private final static PieceShape SHAPE = new PieceShape(new int[][][]{
+        {{0, 0}, {1, 0}, {0, 1}, {1, 1}}}, PieceShape.STANDARD_KICKS);
 
     /**
-     * Método da clase Piece, redefinido. Rota a ficha se é posible
+     * Constructor
      *
-     * @return true se o movemento da ficha é posible, se non false
+     * @param game parámetro da clase game
      */
-    @Override
-    public boolean rotate() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public SquarePiece(Game game) {
+        super(game, SHAPE, Color.BLUE, Game.COLUMNS / 2 - 1);
     }
-
 }
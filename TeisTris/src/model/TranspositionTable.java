@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Táboa de transposición que garda a valoración de chans xa vistos,
+ * indexados polo seu hash de Zobrist. Ten un tamaño fixo e usa direccionamento
+ * aberto: cada hash só pode ir a un grupo de BUCKET entradas seguidas, e se o
+ * grupo está cheo substitúese a entrada máis vella e, entre as igual de
+ * vellas, a de menor profundidade. A idade cóntase en xeracións: cada
+ * procura nova empeza unha, así que os chans das pezas pasadas, que xa non
+ * se van volver ver, son os primeiros en saír.
+ * <p>
+ * Varios fíos poden usala á vez sen bloqueos. Cada entrada garda o hash
+ * mesturado cos datos mediante XOR, así que unha entrada escrita á metade
+ * por outro fío non coincide co hash e lese como un fallo
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class TranspositionTable {
+
+    /**
+     * Número de entradas nas que se pode gardar un mesmo hash
+     */
+    private final static int BUCKET = 4;
+
+    /**
+     * Número de longs de cada entrada: comprobación, valoración e profundidade
+     */
+    private final static int ENTRY_LONGS = 3;
+
+    /**
+     * Bit que marca unha entrada ocupada no campo de profundidade
+     */
+    private final static long USED = 1L << 32;
+
+    /**
+     * Posición e máscara da xeración no campo de profundidade, por enriba de
+     * USED
+     */
+    private final static int GENERATION_SHIFT = 33;
+    private final static int GENERATION_MASK = (1 << 31) - 1;
+
+    /**
+     * Entradas da táboa: hash ^ valoración ^ profundidade, valoración e
+     * profundidade, que tamén leva USED e a xeración
+     */
+    private final AtomicLongArray entries;
+    private final int mask;
+
+    /**
+     * Xeración actual, coa que se marcan as entradas que se gardan
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * Estatísticas de uso da táboa
+     */
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder replacements = new LongAdder();
+
+    /**
+     * Construtor da clase
+     *
+     * @param capacity Número máximo de entradas. Redondéase á potencia de dous
+     * anterior, e como mínimo é BUCKET
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity > Integer.MAX_VALUE / ENTRY_LONGS) {
+            throw new IllegalArgumentException("Táboa de transposición demasiado grande: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(capacity, BUCKET));
+        this.entries = new AtomicLongArray(size * ENTRY_LONGS);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Crea unha táboa que ocupa como moito uns megabytes de memoria
+     *
+     * @param megabytes Memoria máxima da táboa
+     * @return A táboa
+     */
+    public static TranspositionTable ofMegabytes(int megabytes) {
+        long capacity = (long) megabytes * 1024 * 1024 / (ENTRY_LONGS * Long.BYTES);
+        return new TranspositionTable((int) Math.min(capacity, Integer.MAX_VALUE / ENTRY_LONGS));
+    }
+
+    /**
+     * Busca a valoración dun chan
+     *
+     * @param hash Hash do chan
+     * @param minDepth Profundidade mínima coa que se tivo que calcular
+     * @return A valoración, ou NaN se non está na táboa cunha profundidade
+     * suficiente
+     */
+    public double get(long hash, int minDepth) {
+        int first = (int) hash & mask;
+        for (int i = 0; i < BUCKET; i++) {
+            int index = ((first + i) & mask) * ENTRY_LONGS;
+            long check = entries.getOpaque(index);
+            long score = entries.getOpaque(index + 1);
+            long depth = entries.getOpaque(index + 2);
+            if ((check ^ score ^ depth) == hash && (depth & USED) != 0) {
+                if ((int) depth >= minDepth) {
+                    hits.increment();
+                    return Double.longBitsToDouble(score);
+                }
+                break;
+            }
+        }
+        misses.increment();
+        return Double.NaN;
+    }
+
+    /**
+     * Empeza unha nova xeración. Chámase ao comezo de cada procura, e as
+     * entradas das xeracións anteriores substitúense antes ca as novas
+     */
+    public void nextGeneration() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Garda a valoración dun chan. Se o hash xa está, substitúese; se non,
+     * ocúpase unha entrada libre do grupo ou a máis vella e de menor
+     * profundidade
+     *
+     * @param hash Hash do chan
+     * @param depth Profundidade coa que se calculou a valoración
+     * @param score Valoración do chan
+     */
+    public void put(long hash, int depth, double score) {
+        int first = (int) hash & mask;
+        int current = generation.get() & GENERATION_MASK;
+        int victim = -1;
+        int victimAge = -1;
+        int victimDepth = Integer.MAX_VALUE;
+        boolean replace = true;
+        for (int i = 0; i < BUCKET; i++) {
+            int index = ((first + i) & mask) * ENTRY_LONGS;
+            long check = entries.getOpaque(index);
+            long oldScore = entries.getOpaque(index + 1);
+            long oldDepth = entries.getOpaque(index + 2);
+            if ((oldDepth & USED) == 0 || (check ^ oldScore ^ oldDepth) == hash) {
+                victim = index;
+                replace = false;
+                break;
+            }
+            // As xeracións dan a volta, así que a idade é a diferenza módulo a máscara
+            int age = (current - (int) (oldDepth >>> GENERATION_SHIFT)) & GENERATION_MASK;
+            if (age > victimAge || (age == victimAge && (int) oldDepth < victimDepth)) {
+                victim = index;
+                victimAge = age;
+                victimDepth = (int) oldDepth;
+            }
+        }
+        if (replace) {
+            replacements.increment();
+        }
+        long scoreBits = Double.doubleToRawLongBits(score);
+        long depthBits = ((long) current << GENERATION_SHIFT) | USED | (depth & 0xFFFFFFFFL);
+        entries.setOpaque(victim, hash ^ scoreBits ^ depthBits);
+        entries.setOpaque(victim + 1, scoreBits);
+        entries.setOpaque(victim + 2, depthBits);
+        stores.increment();
+    }
+
+    /**
+     * Baleira a táboa e pon a cero as estatísticas. Non se debe chamar
+     * mentres outros fíos a usan
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.setPlain(i, 0);
+        }
+        generation.set(0);
+        hits.reset();
+        misses.reset();
+        stores.reset();
+        replacements.reset();
+    }
+
+    /**
+     * @return Número máximo de entradas
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return Número de buscas que atoparon o chan
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Número de buscas que non atoparon o chan
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Número de valoracións gardadas
+     */
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * @return Número de valoracións gardadas enriba doutro chan
+     */
+    public long getReplacements() {
+        return replacements.sum();
+    }
+
+    /**
+     * @return Proporción de buscas que atoparon o chan, entre 0 e 1
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return (total == 0) ? 0.0 : (double) h / total;
+    }
+}
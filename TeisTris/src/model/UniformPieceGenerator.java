@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Xerador que escolle cada peza ao chou, todas coa mesma probabilidade
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class UniformPieceGenerator implements PieceGenerator {
+
+    private final long seed;
+    private final SplittableRandom random;
+
+    /**
+     * Construtor da clase
+     *
+     * @param seed Semente do xerador
+     */
+    public UniformPieceGenerator(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int nextType() {
+        return random.nextInt(Game.PIECE_TYPES);
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String getName() {
+        return "uniform";
+    }
+}
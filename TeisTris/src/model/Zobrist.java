@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Claves de Zobrist do chan: cada cela do panel ten un número aleatorio de 64
+ * bits, e o hash dun chan é o XOR das claves das celas ocupadas. Ao ocupar ou
+ * baleirar unha cela chega con facer o XOR da súa clave, así que o hash pode
+ * manterse sen recalculalo. As claves saen dunha semente fixa, polo que o
+ * mesmo chan ten sempre o mesmo hash
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public final class Zobrist {
+
+    /**
+     * Clave de cada cela, indexada por fila * COLUMNS + columna
+     */
+    private final static long[] CELL_KEYS = new long[Game.ROWS * Game.COLUMNS];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED7E7215L);
+        for (int i = 0; i < CELL_KEYS.length; i++) {
+            CELL_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param column Columna da cela
+     * @param row Fila da cela
+     * @return Clave da cela
+     */
+    static long cell(int column, int row) {
+        return CELL_KEYS[row * Game.COLUMNS + column];
+    }
+
+    /**
+     * @param row Fila do chan
+     * @param mask Máscara de bits coas columnas ocupadas desa fila
+     * @return XOR das claves das celas ocupadas da fila
+     */
+    static long row(int row, int mask) {
+        long hash = 0;
+        while (mask != 0) {
+            hash ^= CELL_KEYS[row * Game.COLUMNS + Integer.numberOfTrailingZeros(mask)];
+            mask &= mask - 1;
+        }
+        return hash;
+    }
+
+    /**
+     * @param masks Máscaras de bits de cada fila da caixa dunha peza
+     * @param column Columna da caixa da peza
+     * @param row Fila da caixa da peza
+     * @return XOR das claves das celas que ocupa a peza dentro do panel
+     */
+    static long piece(int[] masks, int column, int row) {
+        long hash = 0;
+        for (int i = 0; i < masks.length; i++) {
+            int r = row + i;
+            if (r >= 0 && r < Game.ROWS) {
+                hash ^= row(r, (column >= 0) ? masks[i] << column : masks[i] >>> -column);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Calcula desde cero o hash dun chan
+     *
+     * @param ground Filas do chan en forma de máscara de bits
+     * @return Hash do chan
+     */
+    public static long hash(int[] ground) {
+        long hash = 0;
+        for (int row = 0; row < Game.ROWS; row++) {
+            hash ^= row(row, ground[row]);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package replay;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import model.Game;
+import model.GameListener;
+import model.Gravity;
+import model.InputAction;
+import model.PieceGenerator;
+
+/**
+ * Le unha partida gravada por ReplayWriter e a volve xogar frame a frame. O
+ * ficheiro decodifícase enteiro ao abrilo, así que os erros de formato
+ * detéctanse antes de empezar
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class ReplayReader {
+
+    private final long seed;
+    private final String generator;
+    private final String gravity;
+
+    /**
+     * Frame e código de cada rexistro, ata o de fin incluído
+     */
+    private final int[] frames;
+    private final byte[] codes;
+
+    /**
+     * Posición do seguinte rexistro a aplicar
+     */
+    private int next = 0;
+
+    /**
+     * Construtor da clase, que le e decodifica o ficheiro
+     *
+     * @param file Ficheiro da partida
+     * @throws IOException Se non se pode ler o ficheiro ou non ten o formato
+     * correcto
+     */
+    public ReplayReader(Path file) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file)) {
+            data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) {
+                    throw new IOException("Ficheiro de repetición incompleto");
+                }
+            }
+        }
+        data.flip();
+        try {
+            byte[] magic = new byte[ReplayWriter.MAGIC.length];
+            data.get(magic);
+            if (!Arrays.equals(magic, ReplayWriter.MAGIC) || data.get() != ReplayWriter.VERSION) {
+                throw new IOException("Non é un ficheiro de repetición");
+            }
+            seed = data.getLong();
+            generator = readName(data);
+            gravity = readName(data);
+            // Compróbanse aquí para que createGame non falle despois
+            try {
+                PieceGenerator.create(generator, seed);
+                Gravity.forName(gravity);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage());
+            }
+
+            int[] readFrames = new int[64];
+            byte[] readCodes = new byte[64];
+            int count = 0;
+            int frame = 0;
+            int code;
+            do {
+                long value = readVarint(data);
+                frame += (int) (value >>> ReplayWriter.ACTION_BITS);
+                code = (int) value & ((1 << ReplayWriter.ACTION_BITS) - 1);
+                if (code > InputAction.values().length) {
+                    throw new IOException("Acción descoñecida: " + code);
+                }
+                if (count == readFrames.length) {
+                    readFrames = Arrays.copyOf(readFrames, count * 2);
+                    readCodes = Arrays.copyOf(readCodes, count * 2);
+                }
+                readFrames[count] = frame;
+                readCodes[count] = (byte) code;
+                count++;
+            } while (code != ReplayWriter.END);
+            frames = Arrays.copyOf(readFrames, count);
+            codes = Arrays.copyOf(readCodes, count);
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Ficheiro de repetición incompleto");
+        } catch (RuntimeException ex) {
+            // Calquera outro fallo ao decodificar é un ficheiro mal formado
+            throw new IOException("Ficheiro de repetición non válido: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Le un nome da cabeceira, gardado como un byte sen signo coa lonxitude
+     * e os caracteres en ASCII
+     *
+     * @param data Datos do ficheiro
+     * @return O nome
+     * @throws IOException Se o nome sae fóra do ficheiro
+     */
+    private static String readName(ByteBuffer data) throws IOException {
+        int length = data.get() & 0xFF;
+        if (length > data.remaining()) {
+            throw new IOException("Ficheiro de repetición incompleto");
+        }
+        byte[] name = new byte[length];
+        data.get(name);
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return Semente do xerador de pezas da partida
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return Nome do xerador de pezas da partida
+     */
+    public String getGenerator() {
+        return generator;
+    }
+
+    /**
+     * @return Nome da curva de gravidade da partida
+     */
+    public String getGravity() {
+        return gravity;
+    }
+
+    /**
+     * @return Último frame da partida
+     */
+    public int getLastFrame() {
+        return frames[frames.length - 1];
+    }
+
+    /**
+     * Crea un xogo igual ao do comezo da partida
+     *
+     * @param listener Obxecto que recibe os eventos do xogo, ou null
+     * @return O xogo
+     */
+    public Game createGame(GameListener listener) {
+        Game game = new Game(listener, PieceGenerator.create(generator, seed), Game.DEFAULT_PREVIEW_SIZE);
+        game.setGravity(Gravity.forName(gravity));
+        return game;
+    }
+
+    /**
+     * Aplica ao xogo as accións do seu frame actual e, se a partida non
+     * rematou, avanza un frame
+     *
+     * @param game Xogo creado con createGame, no que só se xoga a partida
+     * @return true se quedan frames por xogar, se non false
+     */
+    public boolean playFrame(Game game) {
+        while (codes[next] != ReplayWriter.END && frames[next] == game.getFrame()) {
+            game.apply(InputAction.values()[codes[next] - 1]);
+            next++;
+        }
+        if (isFinished(game)) {
+            return false;
+        }
+        game.tick();
+        return !isFinished(game);
+    }
+
+    /**
+     * @param game Xogo no que se xoga a partida
+     * @return true se a partida xa rematou
+     */
+    public boolean isFinished(Game game) {
+        return game.isGameOver() || (codes[next] == ReplayWriter.END && game.getFrame() >= frames[next]);
+    }
+
+    /**
+     * Le un varint
+     *
+     * @param data Datos do ficheiro
+     * @return Valor lido
+     * @throws IOException Se o varint é demasiado longo
+     */
+    private static long readVarint(ByteBuffer data) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint demasiado longo");
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import model.Game;
+import model.InputAction;
+import model.InputListener;
+
+/**
+ * Grava unha partida nun ficheiro binario compacto: unha cabeceira coa
+ * semente, o xerador de pezas e a curva de gravidade, e despois cada acción
+ * do xogador como un varint co número de frames desde a acción anterior e o
+ * código da acción. Ao pechar escríbese unha acción de fin co último frame.
+ * <p>
+ * As accións codifícanse nun buffer en memoria, así que gravar só custa uns
+ * poucos bytes por acción. Cando o buffer se enche pásase a un fío aparte que
+ * o escribe no ficheiro cun FileChannel, sen deter o xogo
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class ReplayWriter implements InputListener {
+
+    /**
+     * Comezo de todos os ficheiros de repetición e versión do formato
+     */
+    static final byte[] MAGIC = {'T', 'T', 'R', 'P'};
+    static final byte VERSION = 2;
+
+    /**
+     * Bits do código da acción en cada rexistro. O código 0 marca o fin da
+     * partida e as accións usan ordinal() + 1
+     */
+    static final int ACTION_BITS = 3;
+    static final int END = 0;
+
+    /**
+     * Tamaño do buffer en memoria e tamaño máximo dun rexistro
+     */
+    private final static int BUFFER_SIZE = 4096;
+    private final static int MAX_RECORD = 10;
+
+    /**
+     * Fío no que se escriben os ficheiros, para non deter o xogo nin a ventá
+     */
+    private final static ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ReplayWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Game game;
+    private final FileChannel channel;
+
+    /**
+     * Buffer onde se codifican as accións. Só se usa desde o fío do xogo
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Frame da última acción gravada
+     */
+    private int lastFrame = 0;
+
+    /**
+     * Flag que indica se xa se informou dun erro de escritura. Só se usa
+     * desde o fío WRITER
+     */
+    private boolean failed = false;
+
+    /**
+     * Construtor da clase, que crea o ficheiro e empeza a gravar as accións
+     * do xogo. Débese crear antes da primeira acción
+     *
+     * @param file Ficheiro onde gravar a partida
+     * @param game Xogo a gravar
+     * @throws IOException Se non se pode crear o ficheiro
+     */
+    public ReplayWriter(Path file, Game game) throws IOException {
+        this.game = game;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        byte[] generator = game.getGenerator().getName().getBytes(StandardCharsets.US_ASCII);
+        buffer.put(MAGIC).put(VERSION).putLong(game.getSeed());
+        byte[] gravity = game.getGravity().getName().getBytes(StandardCharsets.US_ASCII);
+        buffer.put((byte) generator.length).put(generator);
+        buffer.put((byte) gravity.length).put(gravity);
+        game.setInputListener(this);
+    }
+
+    @Override
+    public void inputApplied(int frame, InputAction action) {
+        write(frame, action.ordinal() + 1);
+    }
+
+    /**
+     * Grava o fin da partida no frame actual do xogo, deixa de gravar e
+     * pecha o ficheiro. Espera a que o fío WRITER acabe de escribilo, xa que
+     * é un fío daemon e a máquina virtual podería saír antes
+     */
+    public void close() {
+        game.setInputListener(null);
+        write(game.getFrame(), END);
+        flush();
+        try {
+            WRITER.submit(() -> {
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                    System.out.println("Error al guardar la repetición: " + ex.getMessage());
+                }
+            }).get();
+        } catch (ExecutionException ex) {
+            System.out.println("Error al guardar la repetición: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Codifica un rexistro no buffer
+     *
+     * @param frame Frame do rexistro
+     * @param code Código da acción
+     */
+    private void write(int frame, int code) {
+        if (buffer.remaining() < MAX_RECORD) {
+            flush();
+        }
+        long value = ((long) (frame - lastFrame) << ACTION_BITS) | code;
+        lastFrame = frame;
+        // Varint: 7 bits por byte, co bit alto activo se quedan máis bytes
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Pasa o buffer ao fío WRITER e empeza un novo
+     */
+    private void flush() {
+        ByteBuffer full = buffer;
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        full.flip();
+        WRITER.execute(() -> {
+            try {
+                while (full.hasRemaining()) {
+                    channel.write(full);
+                }
+            } catch (IOException ex) {
+                if (!failed) {
+                    failed = true;
+                    System.out.println("Error al guardar la repetición: " + ex.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package simulation;
+
+/**
+ * Histograma de latencias en nanosegundos con tamaño fixo. Cada potencia de
+ * dous divídese en 8 intervalos, polo que os percentís teñen un erro menor
+ * do 12,5% e rexistrar un valor non crea ningún obxecto
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class LatencyHistogram {
+
+    /**
+     * Bits de precisión dentro de cada potencia de dous
+     */
+    private final static int SUB_BITS = 3;
+    private final static int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Número de valores rexistrados en cada intervalo
+     */
+    private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_BUCKETS];
+
+    /**
+     * Número total de valores e valor máximo rexistrados
+     */
+    private long total = 0;
+    private long max = 0;
+
+    /**
+     * Rexistra unha latencia
+     *
+     * @param nanos Latencia en nanosegundos
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Suma a este histograma os valores doutro
+     *
+     * @param other Histograma a sumar
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return Número de valores rexistrados
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return Maior latencia rexistrada en nanosegundos
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Obtén un percentil das latencias rexistradas
+     *
+     * @param percentile Percentil entre 0 e 100
+     * @return Límite inferior do intervalo no que cae o percentil, en
+     * nanosegundos, ou 0 se non hai valores
+     */
+    public long getPercentile(double percentile) {
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(lowerBound(i), max);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param value Latencia en nanosegundos, non negativa
+     * @return Intervalo no que cae a latencia
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @param bucket Intervalo do histograma
+     * @return Menor latencia que cae nese intervalo
+     */
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+}
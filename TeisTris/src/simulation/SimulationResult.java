@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package simulation;
+
+import java.io.PrintStream;
+
+/**
+ * Resultados dunha ou varias partidas simuladas
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class SimulationResult {
+
+    /**
+     * Número de partidas, pezas, liñas e ticks das partidas
+     */
+    private long games = 0;
+    private long pieces = 0;
+    private long lines = 0;
+    private long ticks = 0;
+
+    /**
+     * Tempo total que levaron os ticks, en nanosegundos
+     */
+    private long tickNanos = 0;
+
+    /**
+     * Latencias de cada tick
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Rexistra o final dunha partida
+     *
+     * @param pieces Pezas creadas na partida
+     * @param lines Liñas feitas na partida
+     */
+    public void recordGame(int pieces, int lines) {
+        this.games++;
+        this.pieces += pieces;
+        this.lines += lines;
+    }
+
+    /**
+     * Rexistra un tick
+     *
+     * @param nanos Tempo que levou o tick, en nanosegundos
+     */
+    public void recordTick(long nanos) {
+        ticks++;
+        tickNanos += nanos;
+        latencies.record(nanos);
+    }
+
+    /**
+     * Suma a estes resultados os doutras partidas
+     *
+     * @param other Resultados a sumar
+     * @return Estes resultados, para poder encadear chamadas
+     */
+    public SimulationResult add(SimulationResult other) {
+        games += other.games;
+        pieces += other.pieces;
+        lines += other.lines;
+        ticks += other.ticks;
+        tickNanos += other.tickNanos;
+        latencies.add(other.latencies);
+        return this;
+    }
+
+    /**
+     * @return Número de partidas
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return Número de pezas creadas
+     */
+    public long getPieces() {
+        return pieces;
+    }
+
+    /**
+     * @return Número de liñas feitas
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * @return Número de ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return Latencias de cada tick
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Mostra un resumo dos resultados
+     *
+     * @param out Onde escribir o resumo
+     * @param elapsedNanos Tempo real que levou a simulación, en nanosegundos
+     */
+    public void print(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Partidas:        %d%n", games);
+        out.printf("Pezas:           %d (%.1f por partida)%n", pieces, games == 0 ? 0.0 : (double) pieces / games);
+        out.printf("Liñas:           %d (%.2f por partida)%n", lines, games == 0 ? 0.0 : (double) lines / games);
+        out.printf("Tempo:           %.3f s%n", seconds);
+        out.printf("Pezas/segundo:   %.0f%n", seconds == 0 ? 0.0 : pieces / seconds);
+        out.printf("Ticks:           %d (media %.0f ns)%n", ticks, ticks == 0 ? 0.0 : (double) tickNanos / ticks);
+        out.printf("Latencia tick:   p50 %d ns, p90 %d ns, p99 %d ns, p99.9 %d ns, max %d ns%n",
+                latencies.getPercentile(50), latencies.getPercentile(90),
+                latencies.getPercentile(99), latencies.getPercentile(99.9), latencies.getMax());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package simulation;
+
+import java.util.concurrent.RecursiveTask;
+import model.Game;
+import model.PieceGenerator;
+import model.TranspositionTable;
+
+/**
+ * Tarefa fork/join que xoga un intervalo de partidas independentes. O
+ * intervalo divídese á metade ata que é pequeno, e os fíos libres rouban as
+ * metades pendentes. Cada partida ten o seu propio xogo, política e xerador
+ * de números aleatorios, e cada tarefa devolve os seus propios resultados,
+ * que se suman ao xuntar as tarefas, así que os fíos non comparten nada
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class SimulationTask extends RecursiveTask<SimulationResult> {
+
+    /**
+     * Número máximo de partidas que xoga unha tarefa sen dividirse
+     */
+    private final static int GAMES_PER_TASK = 4;
+
+    /**
+     * Constante para derivar a semente da política a partir da do xogo
+     */
+    private final static long POLICY_SEED_MIX = 0x9E3779B97F4A7C15L;
+
+    private final String policy;
+    private final String generator;
+    private final int previewSize;
+    private final TranspositionTable table;
+    private final long seed;
+    private final int maxPieces;
+
+    /**
+     * Intervalo de partidas [from, to) que xoga a tarefa
+     */
+    private final int from, to;
+
+    /**
+     * Construtor da clase
+     *
+     * @param policy Nome da política que move as pezas
+     * @param generator Nome do xerador de pezas
+     * @param previewSize Número de pezas que se ven por adiantado
+     * @param table Táboa de transposición que comparten todas as partidas, ou
+     * null
+     * @param seed Semente da primeira partida. A partida i usa seed + i
+     * @param maxPieces Número máximo de pezas por partida
+     * @param from Primeira partida do intervalo
+     * @param to Partida seguinte á última do intervalo
+     */
+    public SimulationTask(String policy, String generator, int previewSize, TranspositionTable table,
+            long seed, int maxPieces, int from, int to) {
+        this.policy = policy;
+        this.generator = generator;
+        this.previewSize = previewSize;
+        this.table = table;
+        this.seed = seed;
+        this.maxPieces = maxPieces;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected SimulationResult compute() {
+        if (to - from <= GAMES_PER_TASK) {
+            SimulationResult result = new SimulationResult();
+            for (int i = from; i < to; i++) {
+                long gameSeed = seed + i;
+                Game game = new Game(null, PieceGenerator.create(generator, gameSeed), previewSize);
+                Simulator.playGame(Simulator.createPolicy(policy, gameSeed ^ POLICY_SEED_MIX, table),
+                        game, maxPieces, result);
+            }
+            return result;
+        }
+        int middle = (from + to) >>> 1;
+        SimulationTask left = new SimulationTask(policy, generator, previewSize, table, seed, maxPieces, from, middle);
+        SimulationTask right = new SimulationTask(policy, generator, previewSize, table, seed, maxPieces, middle, to);
+        left.fork();
+        return right.compute().add(left.join());
+    }
+}
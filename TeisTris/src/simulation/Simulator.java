@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import model.BeamSearch;
+import model.BotMovePolicy;
+import model.Game;
+import model.Heuristic;
+import model.MovePolicy;
+import model.PieceGenerator;
+import model.PlacementSearch;
+import model.TranspositionTable;
+import model.RandomMovePolicy;
+
+/**
+ * Programa de liña de comandos que xoga partidas do Tetris sen ventá, movendo
+ * as pezas cunha política, e mostra o rendemento do xogo
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class Simulator {
+
+    /**
+     * Ancho do feixe e número de pezas que coloca a política beam
+     */
+    private final static int BEAM_WIDTH = 16;
+    private final static int BEAM_DEPTH = 2;
+
+    /**
+     * Número máximo de fíos que admite un ForkJoinPool
+     */
+    private final static int MAX_THREADS = 0x7fff;
+
+    /**
+     * Opcións da liña de comandos e os seus valores por defecto
+     */
+    private int games = 100;
+    private long seed = 1;
+    private String policy = "random";
+    private String generator = "uniform";
+    private int previewSize = Game.DEFAULT_PREVIEW_SIZE;
+    private int maxPieces = 100_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int cacheMegabytes = 0;
+
+    /**
+     * Crea a política que move as pezas dunha partida
+     *
+     * @param name Nome da política
+     * @param seed Semente da partida
+     * @param table Táboa de transposición que comparten todas as partidas, ou
+     * null
+     * @return A política
+     */
+    public static MovePolicy createPolicy(String name, long seed, TranspositionTable table) {
+        switch (name) {
+            case "random":
+                return new RandomMovePolicy(seed);
+            case "bot":
+                // As partidas xa se reparten entre os fíos, así que cada bot procura só nun
+                return new BotMovePolicy(new PlacementSearch(Heuristic.DEFAULT, table));
+            case "beam":
+                // Sen límite de tempo, para que as partidas sexan reproducibles
+                return new BotMovePolicy(new BeamSearch(new PlacementSearch(Heuristic.DEFAULT, table),
+                        BEAM_WIDTH, BEAM_DEPTH, Long.MAX_VALUE));
+            default:
+                throw new IllegalArgumentException("Política descoñecida: " + name);
+        }
+    }
+
+    /**
+     * Xoga unha partida completa sen ventá. En cada tick a política move a
+     * peza e despois a peza baixa unha fila
+     *
+     * @param policy Política que move as pezas
+     * @param game Partida recén creada
+     * @param maxPieces Número máximo de pezas, para que unha boa política non
+     * xogue para sempre
+     * @param result Onde rexistrar a partida e a latencia de cada tick
+     */
+    public static void playGame(MovePolicy policy, Game game, int maxPieces, SimulationResult result) {
+        while (!game.isGameOver() && game.getNumberOfPieces() <= maxPieces) {
+            long start = System.nanoTime();
+            policy.move(game);
+            game.tick();
+            result.recordTick(System.nanoTime() - start);
+        }
+        result.recordGame(game.getNumberOfPieces(), game.getNumberOfLines());
+    }
+
+    /**
+     * Le as opcións da liña de comandos
+     *
+     * @param args Opcións da forma --nome=valor
+     */
+    private void parseArguments(String[] args) {
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Opción incorrecta: " + arg);
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "games" ->
+                    games = Integer.parseInt(value);
+                case "seed" ->
+                    seed = Long.parseLong(value);
+                case "policy" ->
+                    policy = value;
+                case "generator" ->
+                    generator = value;
+                case "preview" ->
+                    previewSize = Integer.parseInt(value);
+                case "max-pieces" ->
+                    maxPieces = Integer.parseInt(value);
+                case "threads" ->
+                    threads = Integer.parseInt(value);
+                case "cache-mb" ->
+                    cacheMegabytes = Integer.parseInt(value);
+                default ->
+                    throw new IllegalArgumentException("Opción descoñecida: " + arg);
+            }
+        }
+        if (games < 1 || maxPieces < 1) {
+            throw new IllegalArgumentException("Fan falta polo menos 1 partida e 1 peza");
+        }
+        if (threads < 1 || threads > MAX_THREADS) {
+            throw new IllegalArgumentException("O número de fíos debe estar entre 1 e " + MAX_THREADS);
+        }
+        if (previewSize < 0 || cacheMegabytes < 0) {
+            throw new IllegalArgumentException("A vista previa e a táboa non poden ser negativas");
+        }
+    }
+
+    /**
+     * Xoga as partidas repartidas entre os fíos dun ForkJoinPool
+     *
+     * @return Resultados de todas as partidas
+     */
+    private SimulationResult run(TranspositionTable table) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new SimulationTask(policy, generator, previewSize, table, seed, maxPieces, 0, games));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        Simulator simulator = new Simulator();
+        try {
+            simulator.parseArguments(args);
+            createPolicy(simulator.policy, simulator.seed, null);
+            PieceGenerator.create(simulator.generator, simulator.seed);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Uso: java -cp TeisTris.jar simulation.Simulator"
+                    + " [--games=N] [--seed=N] [--policy=random|bot|beam] [--generator=uniform|bag|history]"
+                    + " [--preview=N] [--max-pieces=N] [--threads=N] [--cache-mb=N]");
+            System.exit(1);
+        }
+        TranspositionTable table = (simulator.cacheMegabytes > 0)
+                ? TranspositionTable.ofMegabytes(simulator.cacheMegabytes) : null;
+        long start = System.nanoTime();
+        SimulationResult result = simulator.run(table);
+        System.out.printf("Fíos:            %d%n", simulator.threads);
+        result.print(System.out, System.nanoTime() - start);
+        if (table != null) {
+            System.out.printf("Táboa:           %d entradas, %.1f%% acertos, %d substitucións%n",
+                    table.getCapacity(), table.getHitRate() * 100, table.getReplacements());
+        }
+    }
+}
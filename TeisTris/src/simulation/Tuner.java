@@ -0,0 +1,440 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package simulation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import model.BotMovePolicy;
+import model.Game;
+import model.Heuristic;
+import model.MovePolicy;
+import model.PieceGenerator;
+import model.PlacementSearch;
+
+/**
+ * Programa de liña de comandos que axusta os pesos da Heuristic cun
+ * algoritmo xenético. En cada xeración cada individuo xoga as mesmas partidas
+ * sen ventá, repartidas entre os fíos dun ForkJoinPool, e a súa aptitude son
+ * as liñas feitas. Os peores substitúense por fillos dos mellores, e a
+ * poboación gárdase nun ficheiro ao final de cada xeración para poder
+ * continuar despois
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class Tuner {
+
+    /**
+     * Número de pesos de cada individuo
+     */
+    private final static int WEIGHTS = 4;
+
+    /**
+     * Proporción da poboación que entra en cada torneo e que se substitúe en
+     * cada xeración
+     */
+    private final static double TOURNAMENT = 0.1;
+    private final static double REPLACED = 0.3;
+
+    /**
+     * Probabilidade de mutar un fillo, e cambio máximo do peso mutado
+     */
+    private final static double MUTATION_RATE = 0.05;
+    private final static double MUTATION_STEP = 0.2;
+
+    /**
+     * Opcións da liña de comandos e os seus valores por defecto
+     */
+    private int population = 100;
+    private int generations = 50;
+    private int games = 20;
+    private int maxPieces = 500;
+    private long seed = 1;
+    private String generator = "uniform";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path checkpoint = Paths.get("tuner-population.txt");
+
+    /**
+     * Pesos de cada individuo, aptitude de cada individuo e xeración actual
+     */
+    private double[][] weights;
+    private long[] fitness;
+    private int generation = 0;
+
+    /**
+     * Tarefa fork/join que xoga un intervalo das partidas dunha xeración. A
+     * partida i é a partida i % games do individuo i / games, e as súas liñas
+     * gárdanse en lines[i], así que as tarefas non comparten nada
+     */
+    private class FitnessTask extends RecursiveAction {
+
+        private final static int GAMES_PER_TASK = 4;
+
+        private final int[] lines;
+        private final int from, to;
+
+        private FitnessTask(int[] lines, int from, int to) {
+            this.lines = lines;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    lines[i] = playGame(weights[i / games], i % games);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FitnessTask(lines, from, middle), new FitnessTask(lines, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Xoga unha partida cun bot que usa uns pesos
+     *
+     * @param w Pesos da Heuristic
+     * @param game Número da partida dentro da xeración
+     * @return Liñas feitas na partida
+     */
+    private int playGame(double[] w, int game) {
+        // Todos os individuos dunha xeración xogan coas mesmas pezas
+        long gameSeed = seed + (long) generation * games + game;
+        MovePolicy policy = new BotMovePolicy(new PlacementSearch(new Heuristic(w[0], w[1], w[2], w[3])));
+        Game g = new Game(null, PieceGenerator.create(generator, gameSeed), Game.DEFAULT_PREVIEW_SIZE);
+        while (!g.isGameOver() && g.getNumberOfPieces() <= maxPieces) {
+            policy.move(g);
+            g.tick();
+        }
+        return g.getNumberOfLines();
+    }
+
+    /**
+     * Xoga as partidas de todos os individuos e calcula a súa aptitude
+     *
+     * @param pool Fíos onde xogar as partidas
+     */
+    private void evaluate(ForkJoinPool pool) {
+        int[] lines = new int[population * games];
+        pool.invoke(new FitnessTask(lines, 0, lines.length));
+        fitness = new long[population];
+        for (int i = 0; i < lines.length; i++) {
+            fitness[i / games] += lines[i];
+        }
+    }
+
+    /**
+     * Crea unha poboación inicial con pesos ao chou
+     */
+    private void randomPopulation() {
+        SplittableRandom random = new SplittableRandom(seed);
+        weights = new double[population][WEIGHTS];
+        for (double[] w : weights) {
+            for (int i = 0; i < WEIGHTS; i++) {
+                w[i] = random.nextDouble(-1, 1);
+            }
+            normalize(w);
+        }
+        generation = 0;
+    }
+
+    /**
+     * Substitúe os peores individuos por fillos de dous individuos escollidos
+     * por torneo. Cada fillo é a media dos pais ponderada pola súa aptitude
+     */
+    private void breed() {
+        // O xerador depende da xeración, para que ao continuar desde un
+        // ficheiro saian os mesmos fillos
+        SplittableRandom random = new SplittableRandom(seed ^ (0x9E3779B97F4A7C15L * (generation + 1)));
+        Integer[] order = new Integer[population];
+        for (int i = 0; i < population; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> fitness[i]));
+        int replaced = (int) (population * REPLACED);
+        double[][] children = new double[replaced][];
+        for (int c = 0; c < replaced; c++) {
+            int a = tournament(random);
+            int b = tournament(random);
+            while (b == a && population > 1) {
+                b = tournament(random);
+            }
+            double fa = fitness[a] + 1;
+            double fb = fitness[b] + 1;
+            double[] child = new double[WEIGHTS];
+            for (int i = 0; i < WEIGHTS; i++) {
+                child[i] = (weights[a][i] * fa + weights[b][i] * fb) / (fa + fb);
+            }
+            if (random.nextDouble() < MUTATION_RATE) {
+                child[random.nextInt(WEIGHTS)] += random.nextDouble(-MUTATION_STEP, MUTATION_STEP);
+            }
+            normalize(child);
+            children[c] = child;
+        }
+        // Os fillos ocupan o lugar dos peores
+        for (int c = 0; c < replaced; c++) {
+            weights[order[c]] = children[c];
+        }
+        generation++;
+    }
+
+    /**
+     * Escolle ao chou unha parte da poboación e devolve o mellor
+     *
+     * @param random Xerador de números aleatorios
+     * @return Posición do individuo gañador
+     */
+    private int tournament(SplittableRandom random) {
+        int size = Math.max(2, (int) (population * TOURNAMENT));
+        int best = random.nextInt(population);
+        for (int i = 1; i < size; i++) {
+            int candidate = random.nextInt(population);
+            if (fitness[candidate] > fitness[best]) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Escala uns pesos para que teñan módulo 1. A Heuristic só compara chans,
+     * así que os pesos proporcionais xogan igual
+     *
+     * @param w Pesos
+     */
+    private static void normalize(double[] w) {
+        double norm = 0;
+        for (double v : w) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        if (norm > 0) {
+            for (int i = 0; i < w.length; i++) {
+                w[i] /= norm;
+            }
+        }
+    }
+
+    /**
+     * Garda a poboación e a xeración no ficheiro, xunto coas opcións das que
+     * depende a aptitude. Escríbese nun ficheiro temporal que despois
+     * substitúe ao anterior, para non deixar nunca un ficheiro a medias
+     *
+     * @throws IOException Se non se pode escribir o ficheiro
+     */
+    private void saveCheckpoint() throws IOException {
+        Path absolute = checkpoint.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            out.write("generation " + generation + " seed " + seed + " games " + games
+                    + " max-pieces " + maxPieces + " generator " + generator);
+            out.newLine();
+            for (double[] w : weights) {
+                for (int i = 0; i < WEIGHTS; i++) {
+                    out.write((i == 0 ? "" : " ") + w[i]);
+                }
+                out.newLine();
+            }
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Le a poboación e a xeración dun ficheiro gardado antes. As opcións das
+     * que depende a aptitude tómanse do ficheiro, para que a procura siga
+     * igual, e avísase das que non coinciden coas da liña de comandos
+     *
+     * @throws IOException Se non se pode ler o ficheiro
+     */
+    private void loadCheckpoint() throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            String first = in.readLine();
+            String[] header = (first == null) ? new String[0] : first.split(" ");
+            Map<String, String> options = new HashMap<>();
+            for (int i = 0; i + 1 < header.length; i += 2) {
+                options.put(header[i], header[i + 1]);
+            }
+            for (String key : new String[]{"generation", "seed", "games", "max-pieces", "generator"}) {
+                if (!options.containsKey(key)) {
+                    throw new IOException("Cabeceira incompleta: falta " + key);
+                }
+            }
+            int loadedGeneration = Integer.parseInt(options.get("generation"));
+            long loadedSeed = Long.parseLong(options.get("seed"));
+            int loadedGames = Integer.parseInt(options.get("games"));
+            int loadedMaxPieces = Integer.parseInt(options.get("max-pieces"));
+            String loadedGenerator = options.get("generator");
+            if (loadedGames < 1 || loadedMaxPieces < 1) {
+                throw new IOException("Opcións non válidas na cabeceira");
+            }
+            PieceGenerator.create(loadedGenerator, loadedSeed);
+            double[][] loaded = in.lines().filter(line -> !line.isBlank())
+                    .map(line -> Arrays.stream(line.trim().split(" ")).mapToDouble(Double::parseDouble).toArray())
+                    .toArray(double[][]::new);
+            if (loaded.length == 0) {
+                throw new IOException("Poboación baleira");
+            }
+            for (double[] w : loaded) {
+                if (w.length != WEIGHTS) {
+                    throw new IOException("Liña con " + w.length + " pesos");
+                }
+            }
+            StringBuilder changed = new StringBuilder();
+            if (loadedSeed != seed) {
+                changed.append(" --seed=").append(loadedSeed);
+            }
+            if (loadedGames != games) {
+                changed.append(" --games=").append(loadedGames);
+            }
+            if (loadedMaxPieces != maxPieces) {
+                changed.append(" --max-pieces=").append(loadedMaxPieces);
+            }
+            if (!loadedGenerator.equals(generator)) {
+                changed.append(" --generator=").append(loadedGenerator);
+            }
+            if (loaded.length != population) {
+                changed.append(" --population=").append(loaded.length);
+            }
+            if (changed.length() > 0) {
+                System.out.println("Usando as opcións do punto de control:" + changed);
+            }
+            weights = loaded;
+            population = loaded.length;
+            generation = loadedGeneration;
+            seed = loadedSeed;
+            games = loadedGames;
+            maxPieces = loadedMaxPieces;
+            generator = loadedGenerator;
+        }
+    }
+
+    /**
+     * Le as opcións da liña de comandos
+     *
+     * @param args Opcións da forma --nome=valor
+     */
+    private void parseArguments(String[] args) {
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Opción incorrecta: " + arg);
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "population" ->
+                    population = Integer.parseInt(value);
+                case "generations" ->
+                    generations = Integer.parseInt(value);
+                case "games" ->
+                    games = Integer.parseInt(value);
+                case "max-pieces" ->
+                    maxPieces = Integer.parseInt(value);
+                case "seed" ->
+                    seed = Long.parseLong(value);
+                case "generator" ->
+                    generator = value;
+                case "threads" ->
+                    threads = Integer.parseInt(value);
+                case "checkpoint" ->
+                    checkpoint = Paths.get(value);
+                default ->
+                    throw new IllegalArgumentException("Opción descoñecida: " + arg);
+            }
+        }
+        if (population < 2 || games < 1) {
+            throw new IllegalArgumentException("Fan falta polo menos 2 individuos e 1 partida");
+        }
+    }
+
+    /**
+     * Executa as xeracións que faltan, gardando a poboación despois de cada
+     * unha
+     */
+    private void run() {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (generation < generations) {
+                long start = System.nanoTime();
+                evaluate(pool);
+                int best = 0;
+                long total = 0;
+                for (int i = 0; i < population; i++) {
+                    total += fitness[i];
+                    if (fitness[i] > fitness[best]) {
+                        best = i;
+                    }
+                }
+                double[] w = weights[best];
+                System.out.printf("Xeración %d: media %.1f liñas, mellor %.1f liñas (%.3f, %.3f, %.3f, %.3f), %.1f s%n",
+                        generation, (double) total / population / games, (double) fitness[best] / games,
+                        w[0], w[1], w[2], w[3], (System.nanoTime() - start) / 1e9);
+                breed();
+                try {
+                    saveCheckpoint();
+                } catch (IOException ex) {
+                    System.out.println("Error al guardar la población: " + ex.getMessage());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        Tuner tuner = new Tuner();
+        try {
+            tuner.parseArguments(args);
+            PieceGenerator.create(tuner.generator, tuner.seed);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Uso: java -cp TeisTris.jar simulation.Tuner [--population=N] [--generations=N]"
+                    + " [--games=N] [--max-pieces=N] [--seed=N] [--generator=uniform|bag|history]"
+                    + " [--threads=N] [--checkpoint=ficheiro]");
+            System.exit(1);
+        }
+        if (Files.exists(tuner.checkpoint)) {
+            try {
+                tuner.loadCheckpoint();
+                System.out.printf("Continuando desde %s na xeración %d%n", tuner.checkpoint, tuner.generation);
+            } catch (IOException | RuntimeException ex) {
+                // Non se empeza de cero para non sobrescribir un punto de control que aínda se pode recuperar
+                System.err.println("Error al cargar la población de " + tuner.checkpoint + ": " + ex.getMessage());
+                System.exit(1);
+            }
+        } else {
+            tuner.randomPopulation();
+        }
+        tuner.run();
+    }
+}
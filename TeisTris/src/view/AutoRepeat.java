@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package view;
+
+import model.Game;
+import model.InputAction;
+
+/**
+ * Repetición automática das teclas mantidas, contada en frames do bucle do
+ * xogo en vez de depender da repetición do sistema operativo. Ao premer
+ * esquerda ou dereita a peza móvese unha vez; se a tecla segue premida
+ * durante das frames, despois móvese cada arr frames, ou ata a parede se
+ * arr é 0. Abaixo repítese cada arr frames desde o principio, e rotar e
+ * deixar caer de golpe nunca se repiten
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class AutoRepeat {
+
+    /**
+     * Valores por defecto a 60 frames por segundo: uns 167 ms antes de
+     * empezar a repetir e 30 movementos por segundo
+     */
+    public final static int DEFAULT_DAS = 10;
+    public final static int DEFAULT_ARR = 2;
+
+    private final int das;
+    private final int arr;
+
+    /**
+     * Teclas premidas, indexadas por ordinal()
+     */
+    private final boolean[] held = new boolean[InputAction.values().length];
+
+    /**
+     * Dirección que se está a repetir, ou null, e frames que leva premida
+     */
+    private InputAction shift = null;
+    private int shiftFrames = 0;
+
+    /**
+     * Frames que leva premida a tecla de abaixo
+     */
+    private int downFrames = 0;
+
+    /**
+     * Construtor da clase
+     *
+     * @param das Frames que hai que manter unha dirección antes de que se
+     * repita
+     * @param arr Frames entre repeticións, ou 0 para ir directamente á parede
+     */
+    public AutoRepeat(int das, int arr) {
+        if (das < 0 || arr < 0) {
+            throw new IllegalArgumentException("Frames de repetición negativos: " + das + ", " + arr);
+        }
+        this.das = das;
+        this.arr = arr;
+    }
+
+    /**
+     * Aplica unha tecla que se acaba de premer. Se xa estaba premida non fai
+     * nada, así que a repetición do sistema operativo non se nota
+     *
+     * @param game Xogo
+     * @param action Acción da tecla
+     */
+    public void press(Game game, InputAction action) {
+        if (held[action.ordinal()]) {
+            return;
+        }
+        held[action.ordinal()] = true;
+        game.apply(action);
+        switch (action) {
+            case LEFT, RIGHT -> {
+                // A última dirección premida é a que manda
+                shift = action;
+                shiftFrames = 0;
+            }
+            case DOWN ->
+                downFrames = 0;
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Rexistra que se soltou unha tecla. Se era a dirección que se repetía e
+     * a contraria segue premida, pasa a repetirse esa, empezando de novo a
+     * espera
+     *
+     * @param action Acción da tecla
+     */
+    public void release(InputAction action) {
+        held[action.ordinal()] = false;
+        if (action == shift) {
+            InputAction other = (action == InputAction.LEFT) ? InputAction.RIGHT : InputAction.LEFT;
+            shift = held[other.ordinal()] ? other : null;
+            shiftFrames = 0;
+        }
+    }
+
+    /**
+     * Conta un frame e aplica as repeticións que tocan
+     *
+     * @param game Xogo
+     */
+    public void step(Game game) {
+        if (shift != null && ++shiftFrames >= das) {
+            if (arr == 0) {
+                // Ata a parede ou ata que a peza choque
+                for (int i = 0; i < Game.COLUMNS; i++) {
+                    int column = game.getCurrentPiece().getColumn();
+                    game.apply(shift);
+                    if (game.getCurrentPiece().getColumn() == column) {
+                        break;
+                    }
+                }
+            } else if ((shiftFrames - das) % arr == 0) {
+                game.apply(shift);
+            }
+        }
+        if (held[InputAction.DOWN.ordinal()] && ++downFrames % Math.max(1, arr) == 0) {
+            game.apply(InputAction.DOWN);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package view;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import javax.imageio.ImageIO;
+import javax.swing.JPanel;
+import model.Game;
+import model.GameSnapshot;
+
+/**
+ * Panel que pinta o taboleiro do xogo do Tetris a partir de copias
+ * inmutables do xogo. Non ten un compoñente por cadrado: pinta o fondo, o
+ * chan, a peza fantasma que mostra onde caerá a peza e a peza actual, e só
+ * repinta as celas que cambian dunha copia á seguinte
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class BoardPanel extends JPanel {
+
+    /**
+     * Imaxe de fondo tal como está no ficheiro, que se le unha soa vez
+     */
+    private final static BufferedImage BACKGROUND_SOURCE = loadBackground();
+
+    /**
+     * Imaxe de fondo xa escalada ao tamaño do panel e compatible coa
+     * pantalla, para que se poida copiar sen convertela en cada pintado
+     */
+    private BufferedImage background;
+
+    /**
+     * Configuración gráfica para a que se creou a imaxe de fondo escalada
+     */
+    private GraphicsConfiguration backgroundConfiguration;
+
+    /**
+     * Copia do xogo que se está a pintar, ou null se só se pinta o fondo
+     */
+    private GameSnapshot snapshot;
+
+    /**
+     * Rectángulo que se reutiliza para ler a zona que hai que pintar
+     */
+    private final Rectangle clip = new Rectangle();
+
+    /**
+     * Pasa a pintar unha nova copia do xogo. Só se repintan as filas do chan
+     * que cambiaron e as celas da peza e da fantasma antes e despois. Débese
+     * chamar desde o fío de eventos
+     *
+     * @param next Copia a pintar, ou null para deixar só o fondo
+     */
+    public void showSnapshot(GameSnapshot next) {
+        GameSnapshot previous = snapshot;
+        snapshot = next;
+        if (previous == null || next == null) {
+            repaint();
+            return;
+        }
+        int firstRow = Game.ROWS;
+        int lastRow = -1;
+        for (int row = 0; row < Game.ROWS; row++) {
+            if (!next.isSameRow(previous, row)) {
+                firstRow = Math.min(firstRow, row);
+                lastRow = row;
+            }
+        }
+        if (lastRow >= 0) {
+            repaint(0, firstRow * Game.SQUARE_SIDE, Game.MAX_X, (lastRow - firstRow + 1) * Game.SQUARE_SIDE);
+        }
+        repaintPiece(previous);
+        repaintPiece(next);
+    }
+
+    /**
+     * Solicita repintar as celas da peza e da fantasma dunha copia do xogo
+     *
+     * @param copy Copia do xogo
+     */
+    private void repaintPiece(GameSnapshot copy) {
+        for (int i = 0; i < copy.getPieceSize(); i++) {
+            repaint(copy.getPieceColumn(i) * Game.SQUARE_SIDE, copy.getPieceRow(i) * Game.SQUARE_SIDE,
+                    Game.SQUARE_SIDE, Game.SQUARE_SIDE);
+            repaint(copy.getPieceColumn(i) * Game.SQUARE_SIDE, copy.getGhostRow(i) * Game.SQUARE_SIDE,
+                    Game.SQUARE_SIDE, Game.SQUARE_SIDE);
+        }
+    }
+
+    /**
+     * Le a imaxe de fondo desde o classpath
+     *
+     * @return A imaxe de fondo, ou null se non se puido ler
+     */
+    private static BufferedImage loadBackground() {
+        try {
+            URL url = BoardPanel.class.getResource("/fondo.png");
+            if (url != null) {
+                return ImageIO.read(url);
+            }
+        } catch (IOException ex) {
+            System.out.println("Error al cargar el fondo: " + ex.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Obtén a imaxe de fondo escalada ao tamaño do panel. Só se volve crear
+     * se cambia o tamaño do panel ou a pantalla na que se mostra
+     *
+     * @return A imaxe de fondo escalada, ou null se non hai imaxe de fondo
+     */
+    private BufferedImage getScaledBackground() {
+        int width = getWidth();
+        int height = getHeight();
+        if (BACKGROUND_SOURCE == null || width <= 0 || height <= 0) {
+            return null;
+        }
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        if (background == null || background.getWidth() != width
+                || background.getHeight() != height
+                || configuration != backgroundConfiguration) {
+            background = (configuration != null)
+                    ? configuration.createCompatibleImage(width, height, Transparency.OPAQUE)
+                    : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            backgroundConfiguration = configuration;
+            Graphics2D g2 = background.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.drawImage(BACKGROUND_SOURCE, 0, 0, width, height, null);
+            g2.dispose();
+        }
+        return background;
+    }
+
+    @Override
+    public void paintComponent(Graphics g) {
+        BufferedImage img = getScaledBackground();
+        if (img != null) {
+            g.drawImage(img, 0, 0, null);
+        } else {
+            super.paintComponent(g);
+        }
+        GameSnapshot copy = snapshot;
+        if (copy == null) {
+            return;
+        }
+
+        // Só percorremos as celas que están dentro da zona a pintar
+        g.getClipBounds(clip);
+        int firstColumn = Math.max(0, clip.x / Game.SQUARE_SIDE);
+        int lastColumn = Math.min(Game.COLUMNS - 1, (clip.x + clip.width - 1) / Game.SQUARE_SIDE);
+        int firstRow = Math.max(0, clip.y / Game.SQUARE_SIDE);
+        int lastRow = Math.min(Game.ROWS - 1, (clip.y + clip.height - 1) / Game.SQUARE_SIDE);
+        int columnsMask = (-1 << firstColumn) & ~(-2 << lastColumn);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int bits = copy.getGroundRow(row) & columnsMask; bits != 0; bits &= bits - 1) {
+                int column = Integer.numberOfTrailingZeros(bits);
+                paintSquare(g, column, row, copy.getGroundColour(column, row));
+            }
+        }
+        if (copy.getGhostDrop() > 0) {
+            g.setColor(copy.getPieceColour());
+            for (int i = 0; i < copy.getPieceSize(); i++) {
+                g.drawRect(copy.getPieceColumn(i) * Game.SQUARE_SIDE + 1, copy.getGhostRow(i) * Game.SQUARE_SIDE + 1,
+                        Game.SQUARE_SIDE - 3, Game.SQUARE_SIDE - 3);
+            }
+        }
+        for (int i = 0; i < copy.getPieceSize(); i++) {
+            paintSquare(g, copy.getPieceColumn(i), copy.getPieceRow(i), copy.getPieceColour());
+        }
+    }
+
+    /**
+     * Pinta un cadrado con relevo, como os bordos biselados das etiquetas
+     *
+     * @param g Contexto gráfico do panel
+     * @param column Columna do cadrado
+     * @param row Fila do cadrado
+     * @param fillColor Cor do cadrado
+     */
+    private void paintSquare(Graphics g, int column, int row, Color fillColor) {
+        g.setColor(fillColor);
+        g.fill3DRect(column * Game.SQUARE_SIDE, row * Game.SQUARE_SIDE,
+                Game.SQUARE_SIDE, Game.SQUARE_SIDE, true);
+    }
+}
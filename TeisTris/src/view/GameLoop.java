@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package view;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import model.Game;
+import model.GameSnapshot;
+import model.InputAction;
+import model.MovePolicy;
+import model.Piece;
+import simulation.LatencyHistogram;
+
+/**
+ * Fío que executa o xogo cun paso de tempo fixo, sen depender do fío de
+ * eventos de Swing. Cada paso é un frame do xogo: aplica as teclas que se
+ * premeron e soltaron, as repeticións das teclas mantidas, move o bot e fai
+ * un tick, no que a peza cae o que marque a gravidade do xogo. Cando o xogo
+ * cambia, deixa unha copia inmutable para pintar e pide ao fío de eventos
+ * que a pinte; se o pintado vai atrasado, as copias intermedias descártanse
+ * e só se pinta a última
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class GameLoop implements Runnable {
+
+    /**
+     * Duración dun paso do bucle: 60 pasos por segundo
+     */
+    public final static long STEP_NANOS = 1_000_000_000L / 60;
+
+    /**
+     * Ao esperar polo seguinte paso, os últimos microsegundos fanse sen durmir
+     * para non depender da precisión do planificador
+     */
+    private final static long SPIN_NANOS = 200_000;
+
+    /**
+     * Atraso máximo que se recupera facendo pasos seguidos. Se o fío vai máis
+     * atrasado, por exemplo despois de suspender o equipo, vólvese empezar a
+     * contar desde agora
+     */
+    private final static long MAX_LAG_NANOS = 250_000_000;
+
+    private final Game game;
+    private final Consumer<GameSnapshot> renderer;
+
+    /**
+     * Número máximo de eventos de teclado pendentes
+     */
+    private final static int INPUT_CAPACITY = 256;
+
+    /**
+     * Eventos de teclado pendentes, que só se engaden desde o fío de eventos
+     */
+    private final InputRing inputs = new InputRing(INPUT_CAPACITY);
+    private final InputRing.Consumer inputConsumer = this::keyEvent;
+    private final AutoRepeat autoRepeat;
+
+    /**
+     * Tempo desde que se preme unha tecla ata que se aplica. Só se usa desde
+     * o fío do bucle
+     */
+    private final LatencyHistogram inputLatencies = new LatencyHistogram();
+    private long drainNanos;
+
+    /**
+     * Eventos de teclado descartados por ter o buffer cheo. Só se usa desde
+     * o fío de eventos
+     */
+    private long droppedInputs = 0;
+
+    /**
+     * Última copia do xogo, e flag que indica se xa se pediu pintala
+     */
+    private final AtomicReference<GameSnapshot> latest = new AtomicReference<>();
+    private final AtomicBoolean paintPending = new AtomicBoolean(false);
+
+    private volatile boolean running = false;
+    private volatile boolean paused = false;
+    private volatile MovePolicy bot = null;
+    private Thread thread;
+
+    /**
+     * Construtor da clase
+     *
+     * @param game Xogo, que a partir de agora só se debe usar desde o bucle
+     * @param renderer Recibe no fío de eventos cada copia que hai que pintar
+     * @param autoRepeat Repetición das teclas mantidas
+     */
+    public GameLoop(Game game, Consumer<GameSnapshot> renderer, AutoRepeat autoRepeat) {
+        this.game = game;
+        this.renderer = renderer;
+        this.autoRepeat = autoRepeat;
+    }
+
+    /**
+     * Pon en marcha o fío do bucle
+     */
+    public void start() {
+        running = true;
+        publish();
+        thread = new Thread(this, "GameLoop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Detén o bucle e espera a que remate o seu fío
+     */
+    public void stop() {
+        running = false;
+        if (thread != null && thread != Thread.currentThread()) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Rexistra que se premeu unha tecla, que se aplica no seguinte paso.
+     * Esta e as seguintes só se poden chamar desde o fío de eventos
+     *
+     * @param action Acción da tecla
+     */
+    public void press(InputAction action) {
+        if (!inputs.offer(action, true, System.nanoTime())) {
+            droppedInputs++;
+        }
+    }
+
+    /**
+     * Rexistra que se soltou unha tecla
+     *
+     * @param action Acción da tecla
+     */
+    public void release(InputAction action) {
+        if (!inputs.offer(action, false, System.nanoTime())) {
+            droppedInputs++;
+        }
+    }
+
+    /**
+     * Aplica unha acción unha soa vez, como unha tecla que se preme e se solta
+     * no mesmo instante
+     *
+     * @param action Acción do xogador
+     */
+    public void input(InputAction action) {
+        press(action);
+        release(action);
+    }
+
+    /**
+     * @return Tempo desde que se premeron as teclas ata que se aplicaron. Só
+     * se debe ler despois de deter o bucle
+     */
+    public LatencyHistogram getInputLatencies() {
+        return inputLatencies;
+    }
+
+    /**
+     * @return Número de eventos de teclado descartados por ter o buffer cheo
+     */
+    public long getDroppedInputs() {
+        return droppedInputs;
+    }
+
+    /**
+     * @param paused O estado de pausa a establecer
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * @param bot Política que move as pezas en cada paso, ou null
+     */
+    public void setBot(MovePolicy bot) {
+        this.bot = bot;
+    }
+
+    @Override
+    public void run() {
+        long next = System.nanoTime();
+        while (running && !game.isGameOver()) {
+            step();
+            next += STEP_NANOS;
+            long now = System.nanoTime();
+            if (now - next > MAX_LAG_NANOS) {
+                next = now;
+            }
+            // Durmimos ata pouco antes do seguinte paso e esperamos o resto activamente
+            while (running && next - now > SPIN_NANOS) {
+                LockSupport.parkNanos(next - now - SPIN_NANOS);
+                now = System.nanoTime();
+            }
+            while (running && System.nanoTime() - next < 0) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Fai un paso do xogo e, se cambiou, deixa unha copia para pintar
+     */
+    private void step() {
+        Piece piece = game.getCurrentPiece();
+        int column = piece.getColumn();
+        int row = piece.getRow();
+        int orientation = piece.getOrientation();
+        int pieces = game.getNumberOfPieces();
+        if (game.isPaused() != paused) {
+            game.setPaused(paused);
+        }
+        drainNanos = System.nanoTime();
+        inputs.drain(inputConsumer);
+        autoRepeat.step(game);
+        if (!paused) {
+            MovePolicy policy = bot;
+            if (policy != null) {
+                policy.move(game);
+            }
+            game.tick();
+        }
+        // A maioría dos frames a peza non se move, e non hai nada que pintar
+        if (game.getNumberOfPieces() != pieces || piece.getColumn() != column
+                || piece.getRow() != row || piece.getOrientation() != orientation) {
+            publish();
+        }
+    }
+
+    /**
+     * Aplica un evento de teclado sacado do buffer
+     *
+     * @param action Acción da tecla
+     * @param pressed true se a tecla se premeu, false se se soltou
+     * @param nanos Instante do evento
+     */
+    private void keyEvent(InputAction action, boolean pressed, long nanos) {
+        if (pressed) {
+            inputLatencies.record(drainNanos - nanos);
+            autoRepeat.press(game, action);
+        } else {
+            autoRepeat.release(action);
+        }
+    }
+
+    /**
+     * Deixa unha copia do xogo para pintar e, se non hai xa un pintado
+     * pendente, pídello ao fío de eventos
+     */
+    private void publish() {
+        latest.set(game.snapshot());
+        if (paintPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                paintPending.set(false);
+                renderer.accept(latest.get());
+            });
+        }
+    }
+}
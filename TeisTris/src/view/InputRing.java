@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package view;
+
+import java.util.concurrent.atomic.AtomicLong;
+import model.InputAction;
+
+/**
+ * Buffer circular sen bloqueos para un só produtor e un só consumidor, que
+ * leva as pulsacións de teclas do fío de eventos ao bucle do xogo. Cada
+ * evento é unha acción, se se preme ou se solta, e o instante no que
+ * ocorreu, para medir a latencia ata que se aplica.
+ * <p>
+ * O produtor só escribe tail e o consumidor só escribe head, así que abonda
+ * con publicalos con lazySet despois de escribir ou ler os eventos. Non se
+ * crea ningún obxecto por evento.
+ * <p>
+ * As últimas entradas resérvanse para soltar teclas: se se descartase unha,
+ * a tecla quedaría premida e repetíndose para sempre. Como non pode haber
+ * máis teclas premidas ca accións, abonda cunha entrada por acción
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class InputRing {
+
+    /**
+     * Recibe os eventos que se sacan do buffer
+     */
+    public interface Consumer {
+
+        /**
+         * @param action Acción da tecla
+         * @param pressed true se a tecla se premeu, false se se soltou
+         * @param nanos Instante do evento segundo System.nanoTime
+         */
+        void accept(InputAction action, boolean pressed, long nanos);
+    }
+
+    private final static InputAction[] ACTIONS = InputAction.values();
+
+    /**
+     * Entradas que só poden usar os eventos de soltar unha tecla
+     */
+    private final static int RESERVED = ACTIONS.length;
+
+    private final int mask;
+
+    /**
+     * Eventos do buffer: o código é ordinal() * 2 + 1 se a tecla se premeu
+     */
+    private final byte[] codes;
+    private final long[] times;
+
+    /**
+     * Número de eventos lidos e escritos desde o comezo
+     */
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Copia de head que garda o produtor, para non ler o contador do outro
+     * fío en cada evento
+     */
+    private long cachedHead = 0;
+
+    /**
+     * Construtor da clase
+     *
+     * @param capacity Número máximo de eventos pendentes, potencia de dous
+     * maior ca o número de accións
+     */
+    public InputRing(int capacity) {
+        if (capacity <= RESERVED || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("A capacidade debe ser unha potencia de dous maior ca "
+                    + RESERVED + ": " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.codes = new byte[capacity];
+        this.times = new long[capacity];
+    }
+
+    /**
+     * Engade un evento. Só se pode chamar desde o fío produtor
+     *
+     * @param action Acción da tecla
+     * @param pressed true se a tecla se premeu, false se se soltou
+     * @param nanos Instante do evento segundo System.nanoTime
+     * @return false se o buffer está cheo e o evento se descartou. As teclas
+     * que se premen descártanse antes, cando só quedan as entradas reservadas
+     */
+    public boolean offer(InputAction action, boolean pressed, long nanos) {
+        long t = tail.get();
+        long limit = pressed ? mask - RESERVED : mask;
+        if (t - cachedHead > limit) {
+            cachedHead = head.get();
+            if (t - cachedHead > limit) {
+                return false;
+            }
+        }
+        int i = (int) t & mask;
+        codes[i] = (byte) (action.ordinal() * 2 + (pressed ? 1 : 0));
+        times[i] = nanos;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Saca todos os eventos pendentes. Só se pode chamar desde o fío
+     * consumidor
+     *
+     * @param consumer Recibe os eventos en orde
+     * @return Número de eventos sacados
+     */
+    public int drain(Consumer consumer) {
+        long h = head.get();
+        long t = tail.get();
+        for (long n = h; n < t; n++) {
+            int i = (int) n & mask;
+            consumer.accept(ACTIONS[codes[i] >> 1], (codes[i] & 1) != 0, times[i]);
+        }
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+}
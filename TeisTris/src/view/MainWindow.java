@@ -18,60 +18,112 @@ package view;
 
 import java.awt.KeyEventDispatcher;
 import java.awt.KeyboardFocusManager;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.UnsupportedAudioFileException;
-import javax.swing.JLabel;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
-import javax.swing.Timer;
+import javax.swing.SwingUtilities;
+import model.BeamSearch;
+import model.BotMovePolicy;
 import model.Game;
-import java.awt.Graphics;
-import java.awt.Image;
-import java.awt.Toolkit;
-import javax.swing.JPanel;
+import model.GameListener;
+import model.Gravity;
+import model.Heuristic;
+import model.InputAction;
+import model.MovePolicy;
+import model.Piece;
+import model.PlacementSearch;
+import replay.ReplayReader;
+import replay.ReplayWriter;
 
 /**
  * Clase que implementa a ventÃ¡ principal do xogo do Tetris
  *
  * @author Jorge Val Gil e Adrían Fernández Pérez
  */
-public class MainWindow extends javax.swing.JFrame {
+public class MainWindow extends javax.swing.JFrame implements GameListener {
 
-    private Timer timer = null;
-    private final int difficultnumberlines = 5;
-    private final int timerdelay = 1000;
     private Clip clip = null;
+    private final SoundEffect lineSound = new SoundEffect("/deletelines.wav", 3);
+    private final static int BOT_BEAM_WIDTH = 32; // Chans que garda o xogo automático en cada nivel
+    private final static long BOT_BUDGET_NANOS = 10_000_000; // Tempo máximo que pensa por peza, menos dun paso do bucle
+    private final static Path REPLAY_DIR = Paths.get(System.getProperty("user.home"), ".teistris", "replays"); // Onde se gravan as partidas
+    private final static int MAX_REPLAYS = 50; // Partidas gravadas que se gardan; as máis vellas bórranse
+    private final static DateTimeFormatter REPLAY_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
     class KeyDispatcher implements KeyEventDispatcher {
 
         public boolean dispatchKeyEvent(KeyEvent e) {
+            // As teclas só se usan se a ventá ten o foco, e non mentres se
+            // escolle un ficheiro ou se escribe noutra ventá
+            if (!isActive()) {
+                return false;
+            }
 
-            if (e.getID() == KeyEvent.KEY_PRESSED) {
-                if (e.getKeyCode() == KeyEvent.VK_DOWN) {
-                    if (game != null) {
-                        game.movePieceDown();
-                    }
-                }
-                if (e.getKeyCode() == KeyEvent.VK_UP) {
-                    if (game != null) {
-                        game.rotatePiece();
-                    }
+            // As frechas e o espazo só se pasan ao bucle do xogo, que repite
+            // as que se manteñen premidas
+            InputAction action = switch (e.getKeyCode()) {
+                case KeyEvent.VK_DOWN ->
+                    InputAction.DOWN;
+                case KeyEvent.VK_UP ->
+                    InputAction.ROTATE;
+                case KeyEvent.VK_LEFT ->
+                    InputAction.LEFT;
+                case KeyEvent.VK_RIGHT ->
+                    InputAction.RIGHT;
+                case KeyEvent.VK_SPACE ->
+                    InputAction.HARD_DROP;
+                default ->
+                    null;
+            };
+            if (action != null && gameLoop != null) {
+                if (e.getID() == KeyEvent.KEY_PRESSED) {
+                    gameLoop.press(action);
+                } else if (e.getID() == KeyEvent.KEY_RELEASED) {
+                    gameLoop.release(action);
                 }
-                if (e.getKeyCode() == KeyEvent.VK_LEFT) {
-                    if (game != null) {
-                        game.movePieceLeft();
+                // Consúmese para que o espazo non pulse tamén o botón que
+                // ten o foco, nin as frechas o movan
+                return true;
+            }
+            if (e.getID() == KeyEvent.KEY_PRESSED) {
+                if (e.getKeyCode() == KeyEvent.VK_B) {
+                    // Activa ou desactiva o xogo automático
+                    bot = (bot == null) ? new BotMovePolicy(new BeamSearch(new PlacementSearch(Heuristic.DEFAULT),
+                            BOT_BEAM_WIDTH, Game.DEFAULT_PREVIEW_SIZE + 1, BOT_BUDGET_NANOS)) : null;
+                    if (gameLoop != null) {
+                        gameLoop.setBot(bot);
                     }
                 }
-                if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
-                    if (game != null) {
-                        game.movePieceRight();
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_R ->
+                        openReplay();
+                    case KeyEvent.VK_1 ->
+                        setReplaySpeed(1);
+                    case KeyEvent.VK_2 ->
+                        setReplaySpeed(10);
+                    case KeyEvent.VK_3 ->
+                        setReplaySpeed(100);
+                    case KeyEvent.VK_0 ->
+                        setReplaySpeed(ReplayPlayer.MAX_SPEED);
+                    default -> {
                     }
                 }
             }
@@ -88,28 +140,70 @@ public class MainWindow extends javax.swing.JFrame {
         KeyboardFocusManager manager
                 = KeyboardFocusManager.getCurrentKeyboardFocusManager();
         manager.addKeyEventDispatcher(new KeyDispatcher());
+        // Ao pechar a ventá remátase a gravación antes de que EXIT_ON_CLOSE
+        // saia, para que o ficheiro quede completo
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                stopReplay();
+                stopGame();
+            }
+
+            // As teclas que se solten sen o foco non chegan, así que ao
+            // perdelo sóltanse todas para que non se queden repetindo
+            @Override
+            public void windowDeactivated(WindowEvent e) {
+                if (gameLoop != null) {
+                    for (InputAction action : InputAction.values()) {
+                        gameLoop.release(action);
+                    }
+                }
+            }
+        });
     }
 
     private Game game = null; // Referenza ao obxecto do xogo actual
+    private GameLoop gameLoop = null; // Bucle que fai avanzar o xogo actual
+    private MovePolicy bot = null; // Política que xoga soa, ou null se xoga o usuario
+    private ReplayWriter recorder = null; // Gravación do xogo actual, ou null
+    private ReplayPlayer replayPlayer = null; // Repetición que se está a ver, ou null
+
+    // Os eventos do xogo chegan desde o fío do bucle. As pezas píntanse a
+    // partir das copias que publica o bucle, e o resto pásase ao fío de eventos
+    @Override
+    public void pieceSpawned(Piece piece) {
+    }
 
-    /**
-     * Pinta un cadrado no panel de cadrados
-     *
-     * @param lblSquare Etiqueta co cadrado que se quere pintar no panel
-     */
-    public void drawSquare(JLabel lblSquare) {
-        pnlGame.add(lblSquare);
-        pnlGame.repaint();
+    @Override
+    public void pieceMoved(Piece oldPiece, Piece newPiece) {
+    }
+
+    @Override
+    public void pieceLocked(Piece piece) {
+    }
+
+    @Override
+    public void linesCleared(int clearedRows, int numberOfLines) {
+        SwingUtilities.invokeLater(() -> {
+            reproducirSonido(2);
+            showNumberOfLines(numberOfLines);
+        });
+    }
+
+    @Override
+    public void gameOver() {
+        SwingUtilities.invokeLater(this::showGameOver);
     }
 
     /**
-     * Borra un cadrado do panel de cadrados
+     * Envía unha acción do xogador ao bucle do xogo actual, se hai un
      *
-     * @param lblSquare Etiqueta co cadrado que se quere borrar do panel
+     * @param action Acción do xogador
      */
-    public void deleteSquare(JLabel lblSquare) {
-        pnlGame.remove(lblSquare);
-        pnlGame.repaint();
+    private void input(InputAction action) {
+        if (gameLoop != null) {
+            gameLoop.input(action);
+        }
     }
 
     /**
@@ -119,9 +213,6 @@ public class MainWindow extends javax.swing.JFrame {
      */
     public void showNumberOfLines(int numberOfLines) {
         lblNumberOfLines.setText(String.valueOf(numberOfLines));
-        if (numberOfLines != 0 && numberOfLines % difficultnumberlines == 0) {
-            timer.setDelay(timer.getDelay() / 2);
-        }
     }
 
     /**
@@ -152,6 +243,10 @@ public class MainWindow extends javax.swing.JFrame {
                     //se remata a canción e a partida segue en curso, a canción repetirase
                     clip.loop(Clip.LOOP_CONTINUOUSLY);
                     break;
+                case 2:
+                    //son que se reproduce ao eliminar liñas, xa cargado
+                    lineSound.play();
+                    break;
                 case 3:
                     //se a canción xa está a aberta, parámola
                     if (clip.isOpen()) {
@@ -165,44 +260,150 @@ public class MainWindow extends javax.swing.JFrame {
         }
     }
 
+    /**
+     * Empeza a gravar o xogo actual nun ficheiro novo do directorio de
+     * repeticións. Se non se pode, o xogo segue sen gravarse
+     */
+    private void startRecording() {
+        try {
+            Files.createDirectories(REPLAY_DIR);
+            pruneReplays();
+            String name = "partida-" + LocalDateTime.now().format(REPLAY_NAME) + ".ttr";
+            recorder = new ReplayWriter(REPLAY_DIR.resolve(name), game);
+        } catch (IOException ex) {
+            System.out.println("Error al guardar la repetición: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Borra as partidas gravadas máis vellas para que, coa que se vai gravar,
+     * non haxa máis de MAX_REPLAYS. Os nomes levan a data, así que ordenados
+     * quedan as máis vellas primeiro
+     *
+     * @throws IOException Se non se pode ler o directorio
+     */
+    private void pruneReplays() throws IOException {
+        List<Path> replays = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(REPLAY_DIR, "partida-*.ttr")) {
+            files.forEach(replays::add);
+        }
+        Collections.sort(replays);
+        for (int i = 0; i <= replays.size() - MAX_REPLAYS; i++) {
+            Files.deleteIfExists(replays.get(i));
+        }
+    }
+
+    /**
+     * Remata a gravación do xogo actual, se se está a gravar
+     */
+    private void stopRecording() {
+        if (recorder != null) {
+            recorder.close();
+            recorder = null;
+        }
+    }
+
+    /**
+     * Pide un ficheiro de repetición e empeza a reproducilo no panel, no
+     * lugar do xogo actual
+     */
+    private void openReplay() {
+        JFileChooser chooser = new JFileChooser(REPLAY_DIR.toFile());
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        ReplayReader reader;
+        try {
+            reader = new ReplayReader(chooser.getSelectedFile().toPath());
+        } catch (IOException ex) {
+            System.out.println("Error al cargar la repetición: " + ex.getMessage());
+            return;
+        }
+        // Deixamos o xogo actual
+        if (game != null) {
+            reproducirSonido(3);
+            stopGame();
+        }
+        stopReplay();
+        tglbtnPause.setSelected(false);
+        replayPlayer = new ReplayPlayer(reader,
+                snapshot -> {
+                    pnlGame.showSnapshot(snapshot);
+                    lblNumberOfLines.setText(String.valueOf(snapshot.getNumberOfLines()));
+                },
+                () -> {
+                    replayPlayer = null;
+                    JOptionPane.showMessageDialog(this, "Fin da repetición");
+                });
+        replayPlayer.start();
+    }
+
+    /**
+     * @param speed Velocidade da repetición, se hai unha
+     */
+    private void setReplaySpeed(int speed) {
+        if (replayPlayer != null) {
+            replayPlayer.setSpeed(speed);
+        }
+    }
+
+    /**
+     * Detén a repetición que se está a ver, se hai unha
+     */
+    private void stopReplay() {
+        if (replayPlayer != null) {
+            replayPlayer.stop();
+            replayPlayer = null;
+        }
+    }
+
+    /**
+     * Detén o bucle do xogo actual e remata a súa gravación. O bucle
+     * detense antes para que non grave máis accións despois de pechala
+     */
+    private void stopGame() {
+        if (gameLoop != null) {
+            gameLoop.stop();
+            gameLoop = null;
+        }
+        stopRecording();
+        game = null;
+    }
+
     /**
      * Mostra unha mensaxe informando ao usuario do final do xogo
      */
     public void showGameOver() {
+        // O aviso pode chegar despois de empezar outro xogo
+        if (game == null || !game.isGameOver()) {
+            return;
+        }
         reproducirSonido(3);
-        game = null;
+        stopGame();
         JOptionPane.showMessageDialog(this, "Fin do xogo");
-        timer.stop();
     }
 
     /**
      * Inicia un novo xogo
      */
     private void startGame() {
-        // Limpamos todo o que puidese haber pintado no panel do xogo
+        stopReplay();
         reproducirSonido(1);
-        pnlGame.removeAll();
-        // Creamos un novo obxecto xogo
+        stopGame();
+        // Creamos un novo obxecto xogo e un bucle que o fai avanzar e pasa ao
+        // panel as copias que ten que pintar
         game = new Game(this);
+        // A peza acelera cada poucas liñas, ata caer todo o panel nun frame
+        game.setGravity(Gravity.STANDARD);
+        startRecording();
+        gameLoop = new GameLoop(game, pnlGame::showSnapshot,
+                new AutoRepeat(AutoRepeat.DEFAULT_DAS, AutoRepeat.DEFAULT_ARR));
+        gameLoop.setBot(bot);
         // Desactivamos o botÃ³n de pausa
         tglbtnPause.setSelected(false);
         // Establecemos o nÃºmero de liÃ±as que se mostran na ventÃ¡ a cero
         lblNumberOfLines.setText("0");
-
-        if (timer == null) {
-            ActionListener taskPerformer = new ActionListener() {
-                public void actionPerformed(ActionEvent e) {
-                    if (!game.isPaused()) {
-                        game.movePieceDown();
-                    }
-                }
-            };
-            timer = new Timer(timerdelay, taskPerformer);
-        } else {
-            timer.setDelay(timerdelay);
-        }
-        timer.start();
-
+        gameLoop.start();
     }
 
     /**
@@ -215,12 +416,7 @@ public class MainWindow extends javax.swing.JFrame {
     private void initComponents() {
 
         btnNewGame = new javax.swing.JButton();
-        pnlGame = new JPanel() {  
-            public void paintComponent(Graphics g) {  
-                Image img = Toolkit.getDefaultToolkit().getImage("src/fondo.png");  
-                g.drawImage(img, 0, 0, this.getWidth(), this.getHeight(), this);  
-            }  
-        };  ;
+        pnlGame = new view.BoardPanel();
         btnRotate = new javax.swing.JButton();
         btnRight = new javax.swing.JButton();
         btnLeft = new javax.swing.JButton();
@@ -385,10 +581,21 @@ public class MainWindow extends javax.swing.JFrame {
     private void tglbtnPauseActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_tglbtnPauseActionPerformed
         // Ao picar no botÃ³n de "Pausa", chamamos ao obxecto xogo para 
         // establecer o atributo de pausa no estado do botÃ³n
-        if (game != null) {
-            game.setPaused(tglbtnPause.isSelected());
+        if (gameLoop != null) {
+            gameLoop.setPaused(tglbtnPause.isSelected());
+        }
+        if (replayPlayer != null) {
+            if (tglbtnPause.isSelected()) {
+                replayPlayer.stop();
+            } else {
+                replayPlayer.start();
+            }
+        }
+        //se o botón pausa está seleccionado a canción párase, senón soa.
+        //Se aínda non se xogou ningunha partida non hai canción
+        if (clip == null) {
+            return;
         }
-        //se o botón pausa está seleccionado a canción párase, senón soa
         if (tglbtnPause.isSelected()) {
             clip.stop();
         } else {
@@ -399,33 +606,25 @@ public class MainWindow extends javax.swing.JFrame {
     private void btnRotateActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnRotateActionPerformed
         // Ao picar no botÃ³n de "Rotar", chamamos ao obxecto xogo para que 
         // rote a peza actual
-        if (game != null) {
-            game.rotatePiece();
-        }
+        input(InputAction.ROTATE);
     }//GEN-LAST:event_btnRotateActionPerformed
 
     private void btnLeftActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnLeftActionPerformed
         // Ao picar no botÃ³n de "Esquerda", chamamos ao obxecto xogo para que
         // se mova a peza actual Ã¡ esquerda
-        if (game != null) {
-            game.movePieceLeft();
-        }
+        input(InputAction.LEFT);
     }//GEN-LAST:event_btnLeftActionPerformed
 
     private void btnRightActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnRightActionPerformed
         // Ao picar no botÃ³n de "Dereita", chamamos ao obxecto xogo para que
         // se mova a peza actual Ã¡ dereita
-        if (game != null) {
-            game.movePieceRight();
-        }
+        input(InputAction.RIGHT);
     }//GEN-LAST:event_btnRightActionPerformed
 
     private void btnDownActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnDownActionPerformed
         // Ao picar no botÃ³n de "Abaixo", chamamos ao obxecto xogo para que
         // se mova a peza actual cara abaixo
-        if (game != null) {
-            game.movePieceDown();
-        }
+        input(InputAction.DOWN);
     }//GEN-LAST:event_btnDownActionPerformed
 
     private void formKeyPressed(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_formKeyPressed
@@ -478,7 +677,7 @@ public class MainWindow extends javax.swing.JFrame {
     private javax.swing.JButton btnRotate;
     private javax.swing.JLabel lblLines;
     private javax.swing.JLabel lblNumberOfLines;
-    private javax.swing.JPanel pnlGame;
+    private view.BoardPanel pnlGame;
     private javax.swing.JToggleButton tglbtnPause;
     // End of variables declaration//GEN-END:variables
 }
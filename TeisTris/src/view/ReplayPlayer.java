@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package view;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import model.Game;
+import model.GameSnapshot;
+import replay.ReplayReader;
+
+/**
+ * Reproduce unha partida gravada nun fío propio, co mesmo paso ca o bucle do
+ * xogo en directo. En cada paso xóganse os frames que tocan segundo a
+ * velocidade, sen eventos, e déixase unha copia para pintar igual ca en
+ * GameLoop: se o pintado vai atrasado só se pinta a última. Así a 100x ou á
+ * velocidade máxima nin se enche a cola de eventos nin se bloquea a ventá
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class ReplayPlayer implements Runnable {
+
+    /**
+     * Velocidade que xoga os frames tan rápido como pode
+     */
+    public final static int MAX_SPEED = 0;
+
+    /**
+     * Tempo que se simula en cada paso á velocidade máxima, algo menos dun
+     * paso para deixar tempo ao pintado
+     */
+    private final static long SLICE_NANOS = 12_000_000;
+
+    /**
+     * Atraso máximo que se recupera facendo pasos seguidos
+     */
+    private final static long MAX_LAG_NANOS = 250_000_000;
+
+    private final ReplayReader reader;
+    private final Game game;
+    private final Consumer<GameSnapshot> renderer;
+    private final Runnable onFinished;
+
+    /**
+     * Última copia do xogo, e flag que indica se xa se pediu pintala
+     */
+    private final AtomicReference<GameSnapshot> latest = new AtomicReference<>();
+    private final AtomicBoolean paintPending = new AtomicBoolean(false);
+
+    /**
+     * Velocidade da reprodución, ou MAX_SPEED
+     */
+    private volatile int speed = 1;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    /**
+     * Construtor da clase
+     *
+     * @param reader Partida a reproducir
+     * @param renderer Recibe no fío de eventos cada copia que hai que pintar
+     * @param onFinished Acción que se executa no fío de eventos ao rematar a
+     * partida, se non se detivo antes
+     */
+    public ReplayPlayer(ReplayReader reader, Consumer<GameSnapshot> renderer, Runnable onFinished) {
+        this.reader = reader;
+        this.game = reader.createGame(null);
+        this.renderer = renderer;
+        this.onFinished = onFinished;
+    }
+
+    /**
+     * @param speed Número de veces máis rápido que en directo, ou MAX_SPEED
+     */
+    public void setSpeed(int speed) {
+        this.speed = speed;
+    }
+
+    /**
+     * Empeza ou continúa a reprodución. Esta e stop só se poden chamar desde
+     * o fío de eventos
+     */
+    public void start() {
+        running = true;
+        publish();
+        thread = new Thread(this, "ReplayPlayer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Detén a reprodución e espera a que remate o seu fío
+     */
+    public void stop() {
+        running = false;
+        if (thread != null && thread != Thread.currentThread()) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        long next = System.nanoTime();
+        boolean playing = true;
+        while (running && playing) {
+            playing = step();
+            publish();
+            next += GameLoop.STEP_NANOS;
+            long now = System.nanoTime();
+            if (now - next > MAX_LAG_NANOS) {
+                next = now;
+            }
+            while (running && next - now > 0) {
+                LockSupport.parkNanos(next - now);
+                now = System.nanoTime();
+            }
+        }
+        if (!playing) {
+            SwingUtilities.invokeLater(() -> {
+                // Se se detivo mentres tanto, xa non se avisa
+                if (running) {
+                    running = false;
+                    onFinished.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Xoga os frames dun paso: tantos como a velocidade, ou os que dea
+     * tempo á velocidade máxima
+     *
+     * @return true se quedan frames por xogar, se non false
+     */
+    private boolean step() {
+        boolean playing = true;
+        int frames = speed;
+        if (frames == MAX_SPEED) {
+            long sliceEnd = System.nanoTime() + SLICE_NANOS;
+            while (playing && System.nanoTime() < sliceEnd) {
+                playing = reader.playFrame(game);
+            }
+        } else {
+            // Os frames duran o mesmo que os pasos do bucle do xogo en directo
+            for (int i = 0; playing && i < frames; i++) {
+                playing = reader.playFrame(game);
+            }
+        }
+        return playing;
+    }
+
+    /**
+     * Deixa unha copia do xogo para pintar e, se non hai xa un pintado
+     * pendente, pídello ao fío de eventos
+     */
+    private void publish() {
+        latest.set(game.snapshot());
+        if (paintPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                paintPending.set(false);
+                renderer.accept(latest.get());
+            });
+        }
+    }
+}
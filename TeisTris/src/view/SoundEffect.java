@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package view;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Clase que implementa un efecto de son. O ficheiro decodifícase unha soa vez
+ * e ábrese nun pequeno grupo de Clips que se reutilizan, para que varios sons
+ * seguidos poidan soar á vez sen abrir novas liñas do mesturador
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class SoundEffect {
+
+    /**
+     * Fío no que se reproducen os sons, para non deter o xogo nin a ventá
+     */
+    private final static ExecutorService PLAYER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "SoundEffect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Clips abertos co son xa decodificado, ou null se non se puido cargar
+     */
+    private Clip[] clips;
+
+    /**
+     * Posición do seguinte clip a usar se todos están a soar. Só se usa desde
+     * o fío PLAYER
+     */
+    private int next = 0;
+
+    /**
+     * Construtor da clase, que decodifica o son e abre os clips
+     *
+     * @param resource Ruta do ficheiro de son no classpath
+     * @param voices Número de veces que o son pode soar á vez
+     */
+    public SoundEffect(String resource, int voices) {
+        try (InputStream in = SoundEffect.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Non se atopa " + resource);
+            }
+            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new BufferedInputStream(in));
+            AudioFormat format = audioInputStream.getFormat();
+            byte[] data = audioInputStream.readAllBytes();
+            Clip[] opened = new Clip[voices];
+            for (int i = 0; i < voices; i++) {
+                opened[i] = AudioSystem.getClip();
+                opened[i].open(format, data, 0, data.length);
+            }
+            clips = opened;
+        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException | IllegalArgumentException ex) {
+            System.out.println("Error al cargar el sonido: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Reproduce o son desde o principio noutro fío. Úsase un clip que non
+     * estea a soar e, se están todos ocupados, o que leva máis tempo soando
+     */
+    public void play() {
+        if (clips == null) {
+            return;
+        }
+        PLAYER.execute(() -> {
+            int chosen = next;
+            for (int i = 0; i < clips.length; i++) {
+                int candidate = (next + i) % clips.length;
+                if (!clips[candidate].isRunning()) {
+                    chosen = candidate;
+                    break;
+                }
+            }
+            next = (chosen + 1) % clips.length;
+            Clip clip = clips[chosen];
+            clip.stop();
+            clip.setFramePosition(0);
+            clip.start();
+        });
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2019 Antonio de Andrés Lema
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package model;
+
+import java.lang.management.ManagementFactory;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Comproba que mover, rotar, deixar caer e fixar pezas non crea ningún
+ * obxecto unha vez que o xogo está en marcha
+ *
+ * @author Jorge Val Gil e Adrían Fernández Pérez
+ */
+public class GameAllocationTest {
+
+    /**
+     * Pezas que se xogan antes de medir, para que saia cada tipo polo menos
+     * unha vez, e pezas que se xogan medindo. Co xerador de bolsa os sete
+     * tipos saen nas primeiras sete pezas
+     */
+    private final static int WARMUP_PIECES = 20;
+    private final static int MEASURED_PIECES = 30;
+
+    /**
+     * Xoga unha peza: proba todas as orientacións e columnas movendo a peza
+     * polo panel, e déixaa caer de golpe onde quede máis baixa
+     *
+     * @param game Xogo
+     */
+    private static void playPiece(Game game) {
+        int bestRow = -1;
+        int bestOrientation = 0;
+        int bestShifts = 0;
+        for (int orientation = 0; orientation < 4; orientation++) {
+            for (int shifts = 0; shifts < Game.COLUMNS; shifts++) {
+                moveTo(game, orientation, shifts);
+                if (game.getLandingRow() > bestRow) {
+                    bestRow = game.getLandingRow();
+                    bestOrientation = orientation;
+                    bestShifts = shifts;
+                }
+            }
+        }
+        moveTo(game, bestOrientation, bestShifts);
+        game.tick();
+        game.movePieceDown();
+        game.hardDrop();
+    }
+
+    /**
+     * Leva a peza ao medio do panel, a rota ata unha orientación, a leva ata
+     * a parede esquerda e despois a despraza á dereita. Todos os bucles
+     * están limitados, por se a peza choca
+     *
+     * @param game Xogo
+     * @param orientation Orientación buscada
+     * @param shifts Desprazamentos á dereita desde a parede
+     */
+    private static void moveTo(Game game, int orientation, int shifts) {
+        Piece piece = game.getCurrentPiece();
+        for (int i = 0; i < Game.COLUMNS && piece.getColumn() < Game.COLUMNS / 2 - 2; i++) {
+            game.movePieceRight();
+        }
+        for (int i = 0; i < Game.COLUMNS && piece.getColumn() > Game.COLUMNS / 2 - 2; i++) {
+            game.movePieceLeft();
+        }
+        int target = orientation % piece.getShape().getOrientations();
+        for (int i = 0; i < 4 && piece.getOrientation() != target; i++) {
+            game.rotatePiece();
+        }
+        for (int i = 0; i < Game.COLUMNS; i++) {
+            game.movePieceLeft();
+        }
+        for (int i = 0; i < shifts; i++) {
+            game.movePieceRight();
+        }
+    }
+
+    @Test
+    public void steadyStateTicksDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue("A JVM non mide a memoria reservada por fío", threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // A primeira vez que se executa cada camiño a JVM resolve clases e
+        // métodos, e iso tamén reserva memoria. Xogamos antes a mesma partida
+        // enteira para que a medida só vexa o que reserva o xogo
+        Game warmup = new Game(null, PieceGenerator.create("bag", 42L), Game.DEFAULT_PREVIEW_SIZE);
+        for (int i = 0; i < WARMUP_PIECES + MEASURED_PIECES; i++) {
+            playPiece(warmup);
+        }
+        Game game = new Game(null, PieceGenerator.create("bag", 42L), Game.DEFAULT_PREVIEW_SIZE);
+        for (int i = 0; i < WARMUP_PIECES; i++) {
+            playPiece(game);
+        }
+        int pieces = game.getNumberOfPieces();
+        // A propia medida pode reservar algo, así que a descontamos
+        long overhead = -threads.getCurrentThreadAllocatedBytes() + threads.getCurrentThreadAllocatedBytes();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = WARMUP_PIECES; i < WARMUP_PIECES + MEASURED_PIECES; i++) {
+            playPiece(game);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before - overhead;
+
+        assertFalse("O xogo rematou antes de medir todas as pezas", game.isGameOver());
+        assertEquals(pieces + MEASURED_PIECES, game.getNumberOfPieces());
+        assertTrue("Non se fixo ningunha liña", game.getNumberOfLines() > 0);
+        assertEquals("Bytes reservados xogando " + MEASURED_PIECES + " pezas", 0, allocated);
+    }
+}